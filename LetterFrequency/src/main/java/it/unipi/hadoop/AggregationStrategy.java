@@ -0,0 +1,70 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+
+// Where the counts of the map tasks are aggregated before the shuffle, chosen for each run by the "strategy"
+// configuration value. Every job has a mapper writing a count of 1 for each occurrence, a mapper aggregating
+// the counts of its task in memory, and a combiner; the strategy picks among them
+public enum AggregationStrategy {
+    // Every occurrence is shuffled
+    NONE("none", false, false),
+    // Every occurrence is written by the mapper and summed by the combiner when the map output is spilled
+    COMBINER("combiner", false, true),
+    // The mapper sums the counts of its task in memory and writes them once
+    IN_MAPPER("inMapper", true, false),
+    // The mapper sums the counts in memory within its budget, the combiner merges the partial sums it flushes
+    HYBRID("hybrid", true, true);
+
+    private final String option;
+    private final boolean inMapper;
+    private final boolean combiner;
+
+    AggregationStrategy(String option, boolean inMapper, boolean combiner) {
+        this.option = option;
+        this.inMapper = inMapper;
+        this.combiner = combiner;
+    }
+
+    /**
+        of method returns the strategy named by the "strategy" configuration value, ignoring the case, the
+        in-mapper aggregation being the default.
+
+        @param conf  The configuration object.
+        @return  The aggregation strategy.
+     */
+    public static AggregationStrategy of(Configuration conf) {
+        String name = conf.get("strategy", IN_MAPPER.option);
+        for (AggregationStrategy strategy : values()) {
+            if (strategy.option.equalsIgnoreCase(name))
+                return strategy;
+        }
+        throw new IllegalArgumentException("Unsupported aggregation strategy: " + name);
+    }
+
+    /**
+        configure method sets the mapper and the combiner of a job for this strategy.
+
+        @param job  The job to configure.
+        @param mapper  The mapper writing a count of 1 for each occurrence.
+        @param inMapper  The mapper aggregating the counts of its task.
+        @param combiner  The combiner summing the counts of the same key.
+     */
+    @SuppressWarnings("rawtypes")
+    public void configure(Job job, Class<? extends Mapper> mapper, Class<? extends Mapper> inMapper, Class<? extends Reducer> combiner) {
+        job.setMapperClass(this.inMapper ? inMapper : mapper);
+        if (this.combiner)
+            job.setCombinerClass(combiner);
+    }
+
+    public boolean aggregatesInMapper() {
+        return inMapper;
+    }
+
+    @Override
+    public String toString() {
+        return option;
+    }
+}
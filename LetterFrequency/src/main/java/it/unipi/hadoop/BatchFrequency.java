@@ -0,0 +1,426 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.ByteWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.MRJobConfig;
+import org.apache.hadoop.mapreduce.MapContext;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.LazyOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class BatchFrequency {
+
+    // Mapper: emits a count of 1 for each letter, keyed by the dataset of the input split and the letter ordinal
+    public static class MapperBatch extends Mapper<Object, Text, DatasetLetter, LongWritable> {
+        private static final LongWritable one = new LongWritable(1);
+        private DatasetLetter datasetLetter = new DatasetLetter();
+        private byte[] letterTable;
+        private byte[] ordinals = new byte[0];
+        private String splitFile;
+        private String inputFile;
+
+        @Override
+        protected void setup(Context context) {
+            splitFile = splitFile(context);
+        }
+
+        @Override
+        protected void map(Object key, Text value, Context context) throws IOException, InterruptedException {
+            // A combined split holds several files, the dataset and its language change with the current file
+            String currentFile = currentInputFile(context.getConfiguration(), splitFile);
+            if (!currentFile.equals(inputFile)) {
+                Configuration conf = context.getConfiguration();
+                int dataset = datasetOf(new Path(currentFile), conf);
+
+                inputFile = currentFile;
+                letterTable = LanguageNormalizer.letterTable(conf.getStrings("datasetLanguages")[dataset]);
+                datasetLetter.setDataset(dataset);
+            }
+
+            // Scan the UTF-8 bytes of the line and keep the ordinal of each letter, decoding only multi-byte characters
+            if (ordinals.length < value.getLength())
+                ordinals = new byte[value.getLength()];
+            int length = LanguageNormalizer.ordinals(value.getBytes(), 0, value.getLength(), ordinals, letterTable);
+
+            //Emits each letter found in the input text with a count of 1
+            for (int i = 0; i < length; i++) {
+                datasetLetter.setLetter(ordinals[i]);
+                context.write(datasetLetter, one);
+            }
+        }
+    }
+
+    // Mapper: counts the letters of each dataset of the task in memory and writes their counts once, in cleanup
+    public static class InMapperBatch extends Mapper<Object, Text, DatasetLetter, LongWritable> {
+        private long[][] letterCounts;
+        private DatasetLetter datasetLetter = new DatasetLetter();
+        private LongWritable charCount = new LongWritable();
+        private LetterHistogram[] histograms;
+        private int dataset;
+        private String splitFile;
+        private String inputFile;
+
+        @Override
+        protected void setup(Context context) {
+            splitFile = splitFile(context);
+
+            // One row of counters and its histogram for each dataset, allocated when the dataset is first seen
+            letterCounts = new long[context.getConfiguration().getStrings("datasetPaths").length][];
+            histograms = new LetterHistogram[letterCounts.length];
+        }
+
+        @Override
+        public void map(Object key, Text value, Context context) throws IOException {
+            // A combined split holds several files, the dataset and its language change with the current file
+            String currentFile = currentInputFile(context.getConfiguration(), splitFile);
+            if (!currentFile.equals(inputFile)) {
+                Configuration conf = context.getConfiguration();
+                dataset = datasetOf(new Path(currentFile), conf);
+                String language = conf.getStrings("datasetLanguages")[dataset];
+
+                inputFile = currentFile;
+                if (letterCounts[dataset] == null) {
+                    letterCounts[dataset] = new long[LanguageNormalizer.alphabet(language).length()];
+                    histograms[dataset] = new LetterHistogram(LanguageNormalizer.letterTable(language), letterCounts[dataset]);
+                }
+            }
+
+            // Count the ASCII bytes of the line by value and the letters of its multi-byte characters
+            histograms[dataset].add(value.getBytes(), 0, value.getLength());
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            for (int i = 0; i < letterCounts.length; i++) {
+                if (letterCounts[i] == null)
+                    continue;
+                histograms[i].flush();
+
+                // Write the character counts of the dataset to the context
+                datasetLetter.setDataset(i);
+                for (int ordinal = 0; ordinal < letterCounts[i].length; ordinal++) {
+                    if (letterCounts[i][ordinal] > 0) {
+                        datasetLetter.setLetter((byte) ordinal);
+                        charCount.set(letterCounts[i][ordinal]);
+                        context.write(datasetLetter, charCount);
+                    }
+                }
+            }
+        }
+    }
+
+    public static class CombinerBatch extends Reducer<DatasetLetter, LongWritable, DatasetLetter, LongWritable> {
+        private LongWritable result = new LongWritable();
+
+        @Override
+        public void reduce(DatasetLetter key, Iterable<LongWritable> values, Context context) throws IOException, InterruptedException {
+            long sum = 0;
+
+            // Combine the counts of the same letter of the same dataset
+            for (LongWritable value : values) {
+                sum += value.get();
+            }
+            result.set(sum);
+
+            // Write the key and the aggregated count to the context
+            context.write(key, result);
+        }
+    }
+
+    // Reducer: sums the counts of each letter and writes them to the folder of their dataset
+    public static class ReducerBatch extends Reducer<DatasetLetter, LongWritable, Writable, LongWritable> {
+        private MultipleOutputs<Writable, LongWritable> outputs;
+        private LongWritable result = new LongWritable();
+        private Text letter = new Text();
+        private ByteWritable ordinal = new ByteWritable();
+        private String[] alphabets;
+        private String[] basePaths;
+        private boolean binaryOutput;
+
+        @Override
+        protected void setup(Context context) {
+            Configuration conf = context.getConfiguration();
+            String[] languages = conf.getStrings("datasetLanguages");
+            String[] names = conf.getStrings("datasetNames");
+
+            // Each dataset gets its own folder of part files inside the output folder
+            alphabets = new String[languages.length];
+            basePaths = new String[names.length];
+            for (int i = 0; i < languages.length; i++) {
+                alphabets[i] = LanguageNormalizer.alphabet(languages[i]);
+                basePaths[i] = names[i] + "/part";
+            }
+
+            // Binary output identifies each letter by its ordinal instead of its text
+            binaryOutput = conf.get("outputFormat", "text").equals("sequence");
+            outputs = new MultipleOutputs<>(context);
+        }
+
+        @Override
+        public void reduce(DatasetLetter key, Iterable<LongWritable> values, Context context) throws IOException, InterruptedException {
+            long sum = 0;
+
+            // Combine the counts of the same letter of the same dataset
+            for (LongWritable value : values) {
+                sum += value.get();
+            }
+            result.set(sum);
+
+            // Write the result to the folder of the dataset
+            if (binaryOutput) {
+                ordinal.set(key.getLetter());
+                outputs.write(ordinal, result, basePaths[key.getDataset()]);
+            } else {
+                letter.set(String.valueOf(alphabets[key.getDataset()].charAt(key.getLetter())));
+                outputs.write(letter, result, basePaths[key.getDataset()]);
+            }
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            outputs.close();
+        }
+    }
+
+    // Partitioner: splits the sequence of (dataset, letter) keys into contiguous ranges, so the letters of each
+    // dataset are spread over the reducers and its part files, taken in order, are globally sorted
+    public static class DatasetPartitioner extends Partitioner<DatasetLetter, LongWritable> implements Configurable {
+        private Configuration conf;
+        private int numDatasets;
+
+        @Override
+        public void setConf(Configuration conf) {
+            this.conf = conf;
+            numDatasets = conf.getStrings("datasetNames").length;
+        }
+
+        @Override
+        public Configuration getConf() {
+            return conf;
+        }
+
+        @Override
+        public int getPartition(DatasetLetter key, LongWritable value, int numReduceTasks) {
+            // Every dataset takes 32 slots, the size of the largest alphabet
+            long slot = key.getDataset() * 32L + key.getLetter();
+            return (int) (slot * numReduceTasks / (numDatasets * 32L));
+        }
+    }
+
+    /**
+        configureDatasets method reads the datasets of the batch and stores their paths, languages and names
+        in the configuration. The input is either a directory, whose files are all in the given language, or
+        a manifest with one "inputFile language" line for each dataset, where the input of a dataset is a file
+        or a directory of files. The name of a dataset is the name of its file without the extension.
+
+        @param input  The path of the manifest or of the input directory.
+        @param language  The language of the files of the input directory.
+        @param conf  The configuration object.
+        @return  The names of the datasets.
+     */
+    public static String[] configureDatasets(String input, String language, Configuration conf) throws IOException {
+        FileSystem fs = FileSystem.get(conf);
+        Path inputPath = new Path(input);
+
+        List<String> paths = new ArrayList<>();
+        List<String> languages = new ArrayList<>();
+
+        if (fs.getFileStatus(inputPath).isDirectory()) {
+            // Every file of the directory is a dataset, hidden files and the _SUCCESS marker are skipped
+            for (FileStatus fileStatus : fs.listStatus(inputPath)) {
+                String fileName = fileStatus.getPath().getName();
+                if (fileStatus.isFile() && !fileName.startsWith("_") && !fileName.startsWith(".")) {
+                    paths.add(fileStatus.getPath().toString());
+                    languages.add(language);
+                }
+            }
+        } else {
+            // Empty lines and lines starting with # are ignored
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(inputPath), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#"))
+                        continue;
+
+                    String[] parts = line.split("\\s+");
+                    if (parts.length != 2)
+                        throw new IllegalArgumentException("Invalid manifest line: " + line);
+                    paths.add(fs.makeQualified(new Path(parts[0])).toString());
+                    languages.add(parts[1]);
+                }
+            }
+        }
+
+        if (paths.isEmpty())
+            throw new IllegalArgumentException("No datasets found in " + input);
+
+        return configureDatasets(paths, languages, conf);
+    }
+
+    /**
+        configureDatasets method stores the paths, languages and names of the datasets of the batch in the
+        configuration. The name of a dataset is the name of its file without the extension. A path listed
+        twice, or inside the directory of another dataset, is rejected since its files would belong to both.
+
+        @param paths  The fully qualified path of each dataset.
+        @param languages  The language of each dataset.
+        @param conf  The configuration object.
+        @return  The names of the datasets.
+     */
+    public static String[] configureDatasets(List<String> paths, List<String> languages, Configuration conf) {
+        Set<String> uniquePaths = new HashSet<>(paths);
+        if (uniquePaths.size() < paths.size())
+            throw new IllegalArgumentException("A dataset is listed more than once in the batch");
+        for (String path : paths) {
+            for (Path parent = new Path(path).getParent(); parent != null; parent = parent.getParent()) {
+                if (uniquePaths.contains(parent.toString()))
+                    throw new IllegalArgumentException("Dataset " + path + " is inside the dataset " + parent);
+            }
+        }
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i++) {
+            // Fail before submitting the job if a language is not supported
+            LanguageNormalizer.alphabet(languages.get(i));
+
+            // Strip the extension and make the names unique, they become folder names
+            String name = new Path(paths.get(i)).getName();
+            if (name.lastIndexOf('.') > 0)
+                name = name.substring(0, name.lastIndexOf('.'));
+            while (names.contains(name))
+                name = name + "_" + i;
+            names.add(name);
+        }
+
+        conf.setStrings("datasetPaths", paths.toArray(new String[0]));
+        conf.setStrings("datasetLanguages", languages.toArray(new String[0]));
+        conf.setStrings("datasetNames", names.toArray(new String[0]));
+        return names.toArray(new String[0]);
+    }
+
+    /**
+        datasetOf method returns the index of the dataset an input file belongs to, the dataset of the file
+        itself or of the directory holding it.
+
+        @param path  The fully qualified path of the input file.
+        @param conf  The configuration object.
+        @return  The index of the dataset.
+     */
+    public static int datasetOf(Path path, Configuration conf) throws IOException {
+        String[] paths = conf.getStrings("datasetPaths");
+        String file = path.toString();
+        for (int i = 0; i < paths.length; i++) {
+            if (file.equals(paths[i]) || file.startsWith(paths[i].endsWith("/") ? paths[i] : paths[i] + "/"))
+                return i;
+        }
+        throw new IOException("Input file is not part of the batch: " + path);
+    }
+
+    /**
+        splitFile method returns the file of a plain split, read once when the map task starts.
+
+        @param context  The context of the map task.
+        @return  The fully qualified path of the file of the split, or null for a combined split.
+     */
+    public static String splitFile(MapContext<?, ?, ?, ?> context) {
+        if (context.getInputSplit() instanceof FileSplit)
+            return ((FileSplit) context.getInputSplit()).getPath().toString();
+        return null;
+    }
+
+    /**
+        currentInputFile method returns the file the current record of the map task comes from. A combined
+        split stores it in the configuration each time it moves to the next file; with the new API a plain
+        split does not, so the file of the split is used.
+
+        @param conf  The configuration object of the map task.
+        @param splitFile  The file of a plain split, or null for a combined split.
+        @return  The fully qualified path of the current input file.
+     */
+    public static String currentInputFile(Configuration conf, String splitFile) throws IOException {
+        String inputFile = conf.getRaw(MRJobConfig.MAP_INPUT_FILE);
+        if (inputFile == null)
+            inputFile = splitFile;
+        if (inputFile == null)
+            throw new IOException("The input file of the map task is unknown");
+        return inputFile;
+    }
+
+    public static Job configureBatchJob(String outputFolder, Configuration conf) throws IOException {
+        System.out.println("Configuring letter frequency batch job");
+
+        Job batchJob = Job.getInstance(conf, "LetterFrequencyBatch");
+
+        // Set classes for job, the mapper and the combiner depend on the aggregation strategy
+        batchJob.setJarByClass(BatchFrequency.class);
+        AggregationStrategy.of(conf).configure(batchJob, MapperBatch.class, InMapperBatch.class, CombinerBatch.class);
+
+        // Set the input paths, every dataset is an input of the same job
+        for (String path : conf.getStrings("datasetPaths")) {
+            FileInputFormat.addInputPath(batchJob, new Path(path));
+        }
+        ChunkInputFormat.configureInputFormat(batchJob, conf);
+
+        configureDatasetOutput(batchJob, outputFolder, conf);
+
+        System.out.println("Configured letter frequency batch job");
+        return batchJob;
+    }
+
+    /**
+        configureDatasetOutput method sets the partitioner, the reducer and the output of a job whose map output
+        is keyed by dataset and letter, so the counts of each dataset are written to its own folder.
+
+        @param job  The job to configure.
+        @param outputFolder  The path of the output directory.
+        @param conf  The configuration object.
+     */
+    public static void configureDatasetOutput(Job job, String outputFolder, Configuration conf) {
+        job.setPartitionerClass(DatasetPartitioner.class);
+        job.setReducerClass(ReducerBatch.class);
+
+        // Set output types, the reducers write the count of each letter instead of its frequency
+        job.setMapOutputKeyClass(DatasetLetter.class);
+        job.setMapOutputValueClass(LongWritable.class);
+        job.setOutputValueClass(LongWritable.class);
+
+        // Set the number of reducers
+        job.setNumReduceTasks(conf.getInt("numReducers", 1));
+
+        // Set the output path and format, the reducers only write through MultipleOutputs so the
+        // lazy output format avoids creating empty default part files
+        FileOutputFormat.setOutputPath(job, new Path(outputFolder));
+        if (conf.get("outputFormat", "text").equals("sequence")) {
+            job.setOutputKeyClass(ByteWritable.class);
+            LazyOutputFormat.setOutputFormatClass(job, SequenceFileOutputFormat.class);
+        } else {
+            job.setOutputKeyClass(Text.class);
+            LazyOutputFormat.setOutputFormatClass(job, TextOutputFormat.class);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.CombineTextInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Input format handing each mapper its split in large chunks of bytes instead of one record per line. The
+// letters do not depend on line boundaries, only UTF-8 characters are never cut: a character belongs to the
+// chunk and the split holding its first byte
+public class ChunkInputFormat extends FileInputFormat<LongWritable, Text> {
+
+    // Size of the chunks unless "chunkSize" says otherwise
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    // A UTF-8 character has at most three continuation bytes
+    private static final int MAX_CONTINUATION_BYTES = 3;
+
+    @Override
+    public RecordReader<LongWritable, Text> createRecordReader(InputSplit split, TaskAttemptContext context) {
+        return new ChunkRecordReader();
+    }
+
+    @Override
+    protected boolean isSplitable(JobContext context, Path file) {
+        // Compressed files are read from their beginning to their end by a single reader
+        return new CompressionCodecFactory(context.getConfiguration()).getCodec(file) == null;
+    }
+
+    /**
+        configureInputFormat method sets the input format of a job from the "inputFormat" configuration value:
+        "chunk" for this input format, "line" (the default) for TextInputFormat. When "combineSplitSize" is
+        set, small files are packed together into splits of up to that many bytes, so the number of map
+        tasks follows the size of the input instead of its number of files.
+
+        @param job  The job to configure.
+        @param conf  The configuration object.
+     */
+    public static void configureInputFormat(Job job, Configuration conf) {
+        String inputFormat = conf.get("inputFormat", "line");
+        long combineSplitSize = conf.getLong("combineSplitSize", 0);
+        boolean combine = combineSplitSize > 0;
+
+        switch (inputFormat) {
+            case "line":
+                job.setInputFormatClass(combine ? CombineTextInputFormat.class : TextInputFormat.class);
+                break;
+            case "chunk":
+                job.setInputFormatClass(combine ? CombineChunkInputFormat.class : ChunkInputFormat.class);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported input format: " + inputFormat);
+        }
+
+        if (combine)
+            CombineFileInputFormat.setMaxInputSplitSize(job, combineSplitSize);
+    }
+
+    // Record reader returning the chunks of a split, keyed by the offset of their first byte in the file
+    public static class ChunkRecordReader extends RecordReader<LongWritable, Text> {
+        private InputStream in;
+        private long start;
+        private long end;
+        private long position;
+        private byte[] buffer;
+        private int carried;
+        private boolean finished;
+        private LongWritable key = new LongWritable();
+        private Text value = new Text();
+
+        @Override
+        public void initialize(InputSplit genericSplit, TaskAttemptContext context) throws IOException {
+            FileSplit split = (FileSplit) genericSplit;
+            Configuration conf = context.getConfiguration();
+            Path file = split.getPath();
+            FileSystem fs = file.getFileSystem(conf);
+
+            // A chunk always has room for a character after the bytes carried from the previous chunk
+            int chunkSize = Math.max(conf.getInt("chunkSize", DEFAULT_CHUNK_SIZE), MAX_CONTINUATION_BYTES + 1);
+            buffer = new byte[chunkSize + MAX_CONTINUATION_BYTES];
+
+            FSDataInputStream fileIn = fs.open(file);
+            CompressionCodec codec = new CompressionCodecFactory(conf).getCodec(file);
+            if (codec != null) {
+                // The whole decompressed file is a single split
+                in = codec.createInputStream(fileIn);
+                start = 0;
+                end = Long.MAX_VALUE;
+            } else {
+                fileIn.seek(split.getStart());
+                in = fileIn;
+                start = split.getStart();
+                end = start + split.getLength();
+            }
+            position = start;
+
+            // The continuation bytes at the beginning of the split end a character of the previous split
+            if (start > 0) {
+                for (int i = 0; i < MAX_CONTINUATION_BYTES && position < end; i++) {
+                    int b = in.read();
+                    if (b < 0) {
+                        finished = true;
+                        break;
+                    }
+                    position++;
+                    if (!isContinuation(b)) {
+                        buffer[carried++] = (byte) b;
+                        break;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean nextKeyValue() throws IOException {
+            if (finished || (position >= end && carried == 0)) {
+                finished = true;
+                return false;
+            }
+
+            // Fill the buffer after the bytes carried from the previous chunk, without going past the end of the split
+            long chunkStart = position - carried;
+            int length = carried;
+            int chunkSize = buffer.length - MAX_CONTINUATION_BYTES;
+            while (length < chunkSize && position < end) {
+                int read = in.read(buffer, length, (int) Math.min(chunkSize - length, end - position));
+                if (read < 0) {
+                    end = position;
+                    break;
+                }
+                length += read;
+                position += read;
+            }
+            carried = 0;
+
+            if (position >= end) {
+                // Last chunk of the split: complete its last character with the continuation bytes following the split
+                finished = true;
+                for (int i = 0; i < MAX_CONTINUATION_BYTES; i++) {
+                    int b = in.read();
+                    if (b < 0 || !isContinuation(b))
+                        break;
+                    buffer[length++] = (byte) b;
+                }
+            } else {
+                // Carry an incomplete last character over to the next chunk
+                int lead = length - 1;
+                while (lead > 0 && length - lead <= MAX_CONTINUATION_BYTES && isContinuation(buffer[lead])) {
+                    lead--;
+                }
+                if (lead + sequenceLength(buffer[lead]) > length) {
+                    carried = length - lead;
+                    length = lead;
+                }
+            }
+
+            key.set(chunkStart);
+            value.set(buffer, 0, length);
+            if (carried > 0)
+                System.arraycopy(buffer, length, buffer, 0, carried);
+            return length > 0 || !finished;
+        }
+
+        @Override
+        public LongWritable getCurrentKey() {
+            return key;
+        }
+
+        @Override
+        public Text getCurrentValue() {
+            return value;
+        }
+
+        @Override
+        public float getProgress() {
+            if (end == start || end == Long.MAX_VALUE)
+                return finished ? 1.0f : 0.0f;
+            return Math.min(1.0f, (position - start) / (float) (end - start));
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOUtils.closeStream(in);
+        }
+
+        private static boolean isContinuation(int b) {
+            return (b & 0xC0) == 0x80;
+        }
+
+        // Number of bytes of the sequence starting with the given byte, 1 for the bytes that cannot start one
+        private static int sequenceLength(byte b) {
+            if ((b & 0xE0) == 0xC0)
+                return 2;
+            if ((b & 0xF0) == 0xE0)
+                return 3;
+            if ((b & 0xF8) == 0xF0)
+                return 4;
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileRecordReader;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileRecordReaderWrapper;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileSplit;
+
+import java.io.IOException;
+
+// Input format packing many small files into each split, then reading every file of the split in chunks
+// of bytes like ChunkInputFormat does
+public class CombineChunkInputFormat extends CombineFileInputFormat<LongWritable, Text> {
+
+    @Override
+    public RecordReader<LongWritable, Text> createRecordReader(InputSplit split, TaskAttemptContext context) throws IOException {
+        return new CombineFileRecordReader<>((CombineFileSplit) split, context, ChunkRecordReaderWrapper.class);
+    }
+
+    @Override
+    protected boolean isSplitable(JobContext context, Path file) {
+        // Compressed files are read from their beginning to their end by a single reader
+        return new CompressionCodecFactory(context.getConfiguration()).getCodec(file) == null;
+    }
+
+    // Reader of a single file of the combined split, created by CombineFileRecordReader for each file in turn
+    private static class ChunkRecordReaderWrapper extends CombineFileRecordReaderWrapper<LongWritable, Text> {
+        public ChunkRecordReaderWrapper(CombineFileSplit split, TaskAttemptContext context, Integer index) throws IOException, InterruptedException {
+            super(new ChunkInputFormat(), split, context, index);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Composite key of the batch job: the index of the dataset in the batch and the ordinal of the letter
+public class DatasetLetter implements WritableComparable<DatasetLetter> {
+    private int dataset;
+    private byte letter;
+
+    public int getDataset() {
+        return dataset;
+    }
+
+    public void setDataset(int dataset) {
+        this.dataset = dataset;
+    }
+
+    public byte getLetter() {
+        return letter;
+    }
+
+    public void setLetter(byte letter) {
+        this.letter = letter;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(dataset);
+        out.writeByte(letter);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        dataset = in.readInt();
+        letter = in.readByte();
+    }
+
+    @Override
+    public int compareTo(DatasetLetter other) {
+        if (dataset != other.dataset)
+            return Integer.compare(dataset, other.dataset);
+        return Byte.compare(letter, other.letter);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof DatasetLetter))
+            return false;
+        return dataset == ((DatasetLetter) other).dataset && letter == ((DatasetLetter) other).letter;
+    }
+
+    @Override
+    public int hashCode() {
+        return dataset * 31 + letter;
+    }
+
+    @Override
+    public String toString() {
+        return dataset + "\t" + letter;
+    }
+
+    // Comparator working on the serialized keys: dataset indexes and letter ordinals are never negative,
+    // so comparing the big-endian bytes gives the same order as compareTo without deserializing
+    public static class Comparator extends WritableComparator {
+        public Comparator() {
+            super(DatasetLetter.class);
+        }
+
+        @Override
+        public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+            return compareBytes(b1, s1, l1, b2, s2, l2);
+        }
+    }
+
+    static {
+        WritableComparator.define(DatasetLetter.class, new Comparator());
+    }
+}
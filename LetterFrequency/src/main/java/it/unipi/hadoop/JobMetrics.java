@@ -0,0 +1,312 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.TaskCounter;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormatCounter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Timings and counters of a run, written as JSON or CSV next to the final output so that runs can be compared
+// without scraping the Hadoop log. Each job is timed by phase: the submission, the map phase until every map
+// task is done, the shuffle until the reducers have copied and sorted their input, and the reduce phase until
+// the job completes. The work done in the driver, as the merge of the part files, is timed as its own phase
+public class JobMetrics {
+
+    // Counters exported for each job, with the names Hadoop gives them
+    private static final Enum<?>[] COUNTERS = {
+            FileInputFormatCounter.BYTES_READ,
+            TaskCounter.MAP_INPUT_RECORDS,
+            TaskCounter.MAP_OUTPUT_RECORDS,
+            TaskCounter.MAP_OUTPUT_BYTES,
+            TaskCounter.COMBINE_INPUT_RECORDS,
+            TaskCounter.COMBINE_OUTPUT_RECORDS,
+            TaskCounter.SPILLED_RECORDS,
+            TaskCounter.REDUCE_SHUFFLE_BYTES,
+            TaskCounter.GC_TIME_MILLIS,
+            TaskCounter.CPU_MILLISECONDS
+    };
+
+    // Interval between two reads of the job progress unless "metricsPollInterval" says otherwise
+    private static final long DEFAULT_POLL_INTERVAL = 200;
+
+    // Reduce progress once the copy and sort phases are done, each takes a third of it
+    private static final float SHUFFLE_PROGRESS = 2.0f / 3;
+
+    private final long startTime = System.currentTimeMillis();
+    private final Map<String, Object> run = new LinkedHashMap<>();
+    private final List<JobRecord> jobs = new ArrayList<>();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final long pollInterval;
+
+    // Timings and counters of a completed job
+    private static class JobRecord {
+        String name;
+        long submitMillis;
+        long mapMillis;
+        long shuffleMillis;
+        long reduceMillis;
+        long totalMillis;
+        boolean successful;
+        Map<String, Long> counters = new LinkedHashMap<>();
+    }
+
+    /**
+        JobMetrics constructor describes the run with the settings the results depend on.
+
+        @param input  The path of the input.
+        @param strategy  The aggregation strategy of the run.
+        @param pipeline  The pipeline of the run.
+        @param conf  The configuration object, holding the language and the options of the run.
+     */
+    public JobMetrics(String input, String strategy, String pipeline, Configuration conf) {
+        run.put("timestamp", Instant.ofEpochMilli(startTime).toString());
+        run.put("input", input);
+        run.put("language", conf.get("language"));
+        run.put("strategy", strategy);
+        run.put("pipeline", pipeline);
+        run.put("numReducers", conf.getInt("numReducers", 1));
+        run.put("inputFormat", conf.get("inputFormat", "line") + (conf.getLong("combineSplitSize", 0) > 0 ? "+combine" : ""));
+        run.put("outputFormat", conf.get("outputFormat", "text"));
+        run.put("ngram", conf.getInt("ngram", 1));
+        run.put("profile", conf.get("profile", "none"));
+        run.put("sample", conf.get("sample", "none"));
+        pollInterval = conf.getLong("metricsPollInterval", DEFAULT_POLL_INTERVAL);
+    }
+
+    /**
+        waitForCompletion method submits the job, waits for its completion printing its progress and counters
+        like Job.waitForCompletion does, and records its phase timings and counters.
+
+        @param job  The job to run.
+        @param name  The name of the job in the metrics.
+        @return  True if the job completed successfully.
+     */
+    public boolean waitForCompletion(Job job, String name) throws IOException, InterruptedException, ClassNotFoundException {
+        JobRecord record = new JobRecord();
+        record.name = name;
+
+        long submitStart = System.currentTimeMillis();
+        job.submit();
+        long submitted = System.currentTimeMillis();
+        record.submitMillis = submitted - submitStart;
+
+        // Read the progress in the background while the job is monitored as usual
+        long[] phaseEnds = new long[2];
+        Thread poller = new Thread(() -> pollProgress(job, phaseEnds), "JobMetrics " + name);
+        poller.setDaemon(true);
+        poller.start();
+
+        record.successful = job.waitForCompletion(true);
+        long completed = System.currentTimeMillis();
+        poller.interrupt();
+        poller.join();
+
+        // A phase ending between the last read and the completion ends with the job
+        long mapEnd = (phaseEnds[0] == 0) ? completed : phaseEnds[0];
+        long shuffleEnd = (phaseEnds[1] == 0) ? completed : Math.max(phaseEnds[1], mapEnd);
+        record.mapMillis = mapEnd - submitted;
+        record.shuffleMillis = shuffleEnd - mapEnd;
+        record.reduceMillis = completed - shuffleEnd;
+        record.totalMillis = completed - submitStart;
+
+        Counters counters = job.getCounters();
+        if (counters != null) {
+            for (Enum<?> counter : COUNTERS) {
+                record.counters.put(counter.name(), counters.findCounter(counter).getValue());
+            }
+            for (LetterCounter counter : LetterCounter.values()) {
+                record.counters.put(counter.name(), counters.findCounter(counter).getValue());
+            }
+        }
+
+        jobs.add(record);
+        return record.successful;
+    }
+
+    /**
+        addPhase method records the duration of some work done in the driver.
+
+        @param name  The name of the phase.
+        @param millis  The duration of the phase, in milliseconds.
+     */
+    public void addPhase(String name, long millis) {
+        phases.merge(name, millis, Long::sum);
+    }
+
+    /**
+        write method writes the metrics of the run to a file, as JSON or as CSV with one row for each job
+        and each driver phase, as "metricsFormat" says. The "none" format writes nothing.
+
+        @param outputFile  The path of the metrics file, without its extension.
+        @param conf  The configuration object.
+     */
+    public void write(String outputFile, Configuration conf) throws IOException {
+        String format = conf.get("metricsFormat", "json");
+        if (format.equals("none"))
+            return;
+        if (!format.equals("json") && !format.equals("csv"))
+            throw new IllegalArgumentException("Unsupported metrics format: " + format);
+
+        long totalMillis = System.currentTimeMillis() - startTime;
+        Path path = new Path(outputFile + "." + format);
+        FileSystem fs = path.getFileSystem(conf);
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fs.create(path, true), StandardCharsets.UTF_8))) {
+            if (format.equals("json"))
+                writeJson(writer, totalMillis);
+            else
+                writeCsv(writer, totalMillis);
+        }
+        System.out.println("Metrics file: " + path);
+    }
+
+    // Records when the map phase and the shuffle end, until the job completes or the thread is interrupted
+    private void pollProgress(Job job, long[] phaseEnds) {
+        try {
+            while (!job.isComplete()) {
+                if (phaseEnds[0] == 0 && job.mapProgress() >= 1.0f)
+                    phaseEnds[0] = System.currentTimeMillis();
+                if (phaseEnds[1] == 0 && job.reduceProgress() >= SHUFFLE_PROGRESS)
+                    phaseEnds[1] = System.currentTimeMillis();
+                Thread.sleep(pollInterval);
+            }
+        } catch (InterruptedException | IOException | IllegalStateException e) {
+            // The job is over, the phases not seen yet end with it
+        }
+    }
+
+    private void writeJson(BufferedWriter writer, long totalMillis) throws IOException {
+        writer.write("{\n");
+        for (Map.Entry<String, Object> entry : run.entrySet()) {
+            Object value = entry.getValue();
+            writer.write("  " + quote(entry.getKey()) + ": " + (value instanceof String ? quote((String) value) : value) + ",\n");
+        }
+        writer.write("  \"totalMillis\": " + totalMillis + ",\n");
+
+        writer.write("  \"jobs\": [");
+        for (int i = 0; i < jobs.size(); i++) {
+            JobRecord job = jobs.get(i);
+            writer.write(i == 0 ? "\n" : ",\n");
+            writer.write("    {\n");
+            writer.write("      \"name\": " + quote(job.name) + ",\n");
+            writer.write("      \"successful\": " + job.successful + ",\n");
+            writer.write("      \"submitMillis\": " + job.submitMillis + ",\n");
+            writer.write("      \"mapMillis\": " + job.mapMillis + ",\n");
+            writer.write("      \"shuffleMillis\": " + job.shuffleMillis + ",\n");
+            writer.write("      \"reduceMillis\": " + job.reduceMillis + ",\n");
+            writer.write("      \"totalMillis\": " + job.totalMillis + ",\n");
+            writer.write("      \"counters\": {");
+            String separator = "\n";
+            for (Map.Entry<String, Long> counter : job.counters.entrySet()) {
+                writer.write(separator + "        " + quote(counter.getKey()) + ": " + counter.getValue());
+                separator = ",\n";
+            }
+            writer.write(job.counters.isEmpty() ? "}\n" : "\n      }\n");
+            writer.write("    }");
+        }
+        writer.write(jobs.isEmpty() ? "],\n" : "\n  ],\n");
+
+        writer.write("  \"phases\": {");
+        String separator = "\n";
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            writer.write(separator + "    " + quote(phase.getKey()) + ": " + phase.getValue());
+            separator = ",\n";
+        }
+        writer.write(phases.isEmpty() ? "}\n" : "\n  }\n");
+        writer.write("}\n");
+    }
+
+    private void writeCsv(BufferedWriter writer, long totalMillis) throws IOException {
+        // Every row starts with the description of the run, so files of many runs can be concatenated
+        List<String> header = new ArrayList<>(run.keySet());
+        header.add("runMillis");
+        header.add("job");
+        header.add("successful");
+        header.add("submitMillis");
+        header.add("mapMillis");
+        header.add("shuffleMillis");
+        header.add("reduceMillis");
+        header.add("totalMillis");
+        for (Enum<?> counter : COUNTERS) {
+            header.add(counter.name());
+        }
+        for (LetterCounter counter : LetterCounter.values()) {
+            header.add(counter.name());
+        }
+        writeCsvRow(writer, header);
+
+        for (JobRecord job : jobs) {
+            List<String> row = runColumns(totalMillis);
+            row.add(job.name);
+            row.add(String.valueOf(job.successful));
+            row.add(String.valueOf(job.submitMillis));
+            row.add(String.valueOf(job.mapMillis));
+            row.add(String.valueOf(job.shuffleMillis));
+            row.add(String.valueOf(job.reduceMillis));
+            row.add(String.valueOf(job.totalMillis));
+            for (int i = row.size(); i < header.size(); i++) {
+                Long value = job.counters.get(header.get(i));
+                row.add(value == null ? "" : String.valueOf(value));
+            }
+            writeCsvRow(writer, row);
+        }
+
+        // Driver phases only have a total time
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            List<String> row = runColumns(totalMillis);
+            row.add(phase.getKey());
+            row.add("true");
+            for (int i = row.size(); i < header.size(); i++) {
+                row.add(header.get(i).equals("totalMillis") ? String.valueOf(phase.getValue()) : "");
+            }
+            writeCsvRow(writer, row);
+        }
+    }
+
+    private List<String> runColumns(long totalMillis) {
+        List<String> row = new ArrayList<>();
+        for (Object value : run.values()) {
+            row.add(value == null ? "" : String.valueOf(value));
+        }
+        row.add(String.valueOf(totalMillis));
+        return row;
+    }
+
+    private static void writeCsvRow(BufferedWriter writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i);
+            if (value.contains(",") || value.contains("\"") || value.contains("\n"))
+                value = "\"" + value.replace("\"", "\"\"") + "\"";
+            writer.write(i == 0 ? value : "," + value);
+        }
+        writer.newLine();
+    }
+
+    private static String quote(String value) {
+        if (value == null)
+            return "null";
+
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                quoted.append('\\').append(c);
+            else if (c < 0x20)
+                quoted.append(String.format("\\u%04x", (int) c));
+            else
+                quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+}
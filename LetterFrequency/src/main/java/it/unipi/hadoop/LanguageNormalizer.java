@@ -0,0 +1,313 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.io.Text;
+
+public class LanguageNormalizer {
+
+    // Value of the letter tables for the characters that are not part of the alphabet
+    public static final byte NOT_A_LETTER = -1;
+
+    // Alphabets sorted by code point, the position of each letter is its ordinal in the letter tables
+    private static final String ENGLISH_ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+    private static final String ITALIAN_ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+    private static final String TURKISH_ALPHABET = "abcdefghijklmnopqrstuvwxyzçöüğış";
+
+    // Italian accented letters and the letters they are folded to
+    private static final String ITALIAN_ACCENTS = "àèéìòù";
+    private static final String ITALIAN_ACCENTS_FOLDED = "aeeiou";
+
+    // Letter tables indexed by UTF-16 char, holding the ordinal of the lowercased and folded letter
+    private static final byte[] ENGLISH_TABLE = buildTable(ENGLISH_ALPHABET, "", "");
+    private static final byte[] ITALIAN_TABLE = buildTable(ITALIAN_ALPHABET, ITALIAN_ACCENTS, ITALIAN_ACCENTS_FOLDED);
+    private static final byte[] TURKISH_TABLE = buildTable(TURKISH_ALPHABET, "", "");
+
+    private static byte[] buildTable(String alphabet, String accents, String folded) {
+        byte[] table = new byte[Character.MAX_VALUE + 1];
+
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            // Lowercase the character, then fold its accent away if the language requires it
+            char letter = Character.toLowerCase((char) c);
+            int accent = accents.indexOf(letter);
+            if (accent >= 0)
+                letter = folded.charAt(accent);
+
+            int ordinal = alphabet.indexOf(letter);
+            table[c] = (ordinal >= 0) ? (byte) ordinal : NOT_A_LETTER;
+        }
+
+        return table;
+    }
+
+    /**
+        alphabet method returns the letters of the language sorted by code point.
+
+        @param language  The language code (en, it, trk).
+        @return  The alphabet, where the index of each letter is its ordinal.
+     */
+    public static String alphabet(String language) {
+        switch (language.toLowerCase()) {
+            case "en":
+                return ENGLISH_ALPHABET;
+            case "it":
+                return ITALIAN_ALPHABET;
+            case "trk":
+                return TURKISH_ALPHABET;
+            default:
+                throw new IllegalArgumentException("Unsupported language: " + language);
+        }
+    }
+
+    /**
+        letterTable method returns the lookup table of the language. The table is indexed by UTF-16 char
+        and holds the ordinal of the letter the char is normalized to, or NOT_A_LETTER. It is shared, so
+        callers must not modify it.
+
+        @param language  The language code (en, it, trk).
+        @return  The letter table.
+     */
+    public static byte[] letterTable(String language) {
+        switch (language.toLowerCase()) {
+            case "en":
+                return ENGLISH_TABLE;
+            case "it":
+                return ITALIAN_TABLE;
+            case "trk":
+                return TURKISH_TABLE;
+            default:
+                throw new IllegalArgumentException("Unsupported language: " + language);
+        }
+    }
+
+    public static String normalize(String input, String language) {
+        char[] chars = input.toCharArray();
+        return new String(chars, 0, normalize(chars, chars.length, language));
+    }
+
+    /**
+        normalize method lowercases, folds and filters the first length chars of the array in place.
+
+        @param chars  The characters to normalize.
+        @param length  The number of characters to consider.
+        @param language  The language code (en, it, trk).
+        @return  The number of letters left at the beginning of the array.
+     */
+    public static int normalize(char[] chars, int length, String language) {
+        byte[] table = letterTable(language);
+        String alphabet = alphabet(language);
+
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            byte ordinal = table[chars[i]];
+            if (ordinal != NOT_A_LETTER)
+                chars[count++] = alphabet.charAt(ordinal);
+        }
+        return count;
+    }
+
+    public static int normalize(Text text, char[] output, String language) {
+        return normalize(text.getBytes(), 0, text.getLength(), output, language);
+    }
+
+    /**
+        normalize method decodes UTF-8 bytes and writes the normalized letters to the output array in one pass.
+        A letter takes at least one byte, so an output array as long as the input is always large enough.
+
+        @param utf8  The UTF-8 encoded text.
+        @param offset  The index of the first byte to decode.
+        @param length  The number of bytes to decode.
+        @param output  The array receiving the letters.
+        @param language  The language code (en, it, trk).
+        @return  The number of letters written to the output array.
+     */
+    public static int normalize(byte[] utf8, int offset, int length, char[] output, String language) {
+        byte[] table = letterTable(language);
+        String alphabet = alphabet(language);
+
+        int count = 0;
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            int b = utf8[i];
+            char c;
+
+            if (b >= 0) {
+                // ASCII
+                c = (char) b;
+                i++;
+            } else {
+                int decoded = decodeMultiByte(utf8, i, end);
+                c = (char) decoded;
+                i += decoded >>> 16;
+            }
+
+            byte ordinal = table[c];
+            if (ordinal != NOT_A_LETTER)
+                output[count++] = alphabet.charAt(ordinal);
+        }
+        return count;
+    }
+
+    /**
+        ordinals method decodes UTF-8 bytes and writes the ordinal of each letter to the output array, without
+        going through chars. A letter takes at least one byte, so an output array as long as the input is
+        always large enough.
+
+        @param utf8  The UTF-8 encoded text.
+        @param offset  The index of the first byte to decode.
+        @param length  The number of bytes to decode.
+        @param output  The array receiving the letter ordinals.
+        @param table  The letter table of the language.
+        @return  The number of ordinals written to the output array.
+     */
+    public static int ordinals(byte[] utf8, int offset, int length, byte[] output, byte[] table) {
+        int count = 0;
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            int b = utf8[i];
+            byte ordinal;
+
+            if (b >= 0) {
+                // ASCII, the common case, is a single table lookup
+                ordinal = table[b];
+                i++;
+            } else {
+                int decoded = decodeMultiByte(utf8, i, end);
+                ordinal = table[decoded & 0xFFFF];
+                i += decoded >>> 16;
+            }
+
+            if (ordinal != NOT_A_LETTER)
+                output[count++] = ordinal;
+        }
+        return count;
+    }
+
+    /**
+        characterOrdinals method decodes UTF-8 bytes and writes the ordinal of each character to the output
+        array, NOT_A_LETTER for the characters that are not letters, so that runs of consecutive letters can
+        be told apart. An output array as long as the input is always large enough.
+
+        @param utf8  The UTF-8 encoded text.
+        @param offset  The index of the first byte to decode.
+        @param length  The number of bytes to decode.
+        @param output  The array receiving the ordinals.
+        @param table  The letter table of the language.
+        @return  The number of ordinals written to the output array.
+     */
+    public static int characterOrdinals(byte[] utf8, int offset, int length, byte[] output, byte[] table) {
+        int count = 0;
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            int b = utf8[i];
+
+            if (b >= 0) {
+                output[count++] = table[b];
+                i++;
+            } else {
+                int decoded = decodeMultiByte(utf8, i, end);
+                output[count++] = table[decoded & 0xFFFF];
+                i += decoded >>> 16;
+            }
+        }
+        return count;
+    }
+
+    /**
+        countLetters method decodes UTF-8 bytes and increments the counter of each letter found, without
+        going through chars. Long inputs, as chunks or whole files, are counted faster by LetterHistogram.count.
+
+        @param utf8  The UTF-8 encoded text.
+        @param offset  The index of the first byte to decode.
+        @param length  The number of bytes to decode.
+        @param letterCounts  The counters, indexed by letter ordinal.
+        @param table  The letter table of the language.
+        @return  The number of letters found.
+     */
+    public static int countLetters(byte[] utf8, int offset, int length, long[] letterCounts, byte[] table) {
+        int count = 0;
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            int b = utf8[i];
+            byte ordinal;
+
+            if (b >= 0) {
+                // ASCII, the common case, is a single table lookup
+                ordinal = table[b];
+                i++;
+            } else {
+                int decoded = decodeMultiByte(utf8, i, end);
+                ordinal = table[decoded & 0xFFFF];
+                i += decoded >>> 16;
+            }
+
+            if (ordinal != NOT_A_LETTER) {
+                letterCounts[ordinal]++;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+        countLetters method decodes UTF-8 bytes and counts the letters found, without going through chars.
+
+        @param utf8  The UTF-8 encoded text.
+        @param offset  The index of the first byte to decode.
+        @param length  The number of bytes to decode.
+        @param table  The letter table of the language.
+        @return  The number of letters found.
+     */
+    public static int countLetters(byte[] utf8, int offset, int length, byte[] table) {
+        int count = 0;
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            int b = utf8[i];
+
+            if (b >= 0) {
+                // ASCII, the common case, is a single table lookup
+                if (table[b] != NOT_A_LETTER)
+                    count++;
+                i++;
+            } else {
+                int decoded = decodeMultiByte(utf8, i, end);
+                if (table[decoded & 0xFFFF] != NOT_A_LETTER)
+                    count++;
+                i += decoded >>> 16;
+            }
+        }
+        return count;
+    }
+
+    /**
+        decodeMultiByte method decodes the UTF-8 sequence starting with a non ASCII byte.
+
+        @param utf8  The UTF-8 encoded text.
+        @param index  The index of the first byte of the sequence.
+        @param end  The index following the last byte that can be read.
+        @return  The number of bytes consumed in the high 16 bits and the char in the low 16 bits.
+     */
+    static int decodeMultiByte(byte[] utf8, int index, int end) {
+        int b = utf8[index];
+
+        if ((b & 0xE0) == 0xC0 && (b & 0xFF) >= 0xC2 && index + 1 < end && isContinuation(utf8[index + 1])) {
+            // Two bytes sequence, covers the accented letters of both Italian and Turkish
+            return (2 << 16) | ((b & 0x1F) << 6) | (utf8[index + 1] & 0x3F);
+        } else if ((b & 0xF0) == 0xE0 && index + 2 < end && isContinuation(utf8[index + 1]) && isContinuation(utf8[index + 2])) {
+            // Three bytes sequence, overlong encodings are left to the table as non letters
+            int c = ((b & 0x0F) << 12) | ((utf8[index + 1] & 0x3F) << 6) | (utf8[index + 2] & 0x3F);
+            return (3 << 16) | ((c < 0x800) ? 0xFFFD : c);
+        }
+
+        // Four bytes sequences are supplementary characters, which are never letters, and
+        // malformed bytes are skipped one at a time
+        return (1 << 16) | 0xFFFD;
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+}
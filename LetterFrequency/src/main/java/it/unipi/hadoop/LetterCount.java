@@ -0,0 +1,198 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.MRJobConfig;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.NullOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+import java.io.IOException;
+
+// The map output of the letter count is keyed by the reducer selected by the task partition, which spreads
+// the map tasks over the reducers without drawing a random number for each character
+public class LetterCount {
+
+    // Mapper: emits a count of 1 for each character on the key of the task
+    public static class MapperCount extends Mapper<Object, Text, IntWritable, LongWritable> {
+        private static final LongWritable one = new LongWritable(1);
+        private IntWritable totalCountKey = new IntWritable();
+        private byte[] letterTable;
+        private Counter totalLetters;
+        private boolean emitCounts;
+        private static String language;
+
+        @Override
+        protected void setup(Context context) {
+            if (language == null)
+                language = context.getConfiguration().get("language");
+            letterTable = LanguageNormalizer.letterTable(language);
+
+            // Without reducers the total letter count is only carried by the counter
+            totalLetters = context.getCounter(LetterCounter.TOTAL_LETTERS);
+            emitCounts = context.getNumReduceTasks() > 0;
+            if (emitCounts)
+                totalCountKey.set(context.getConfiguration().getInt(MRJobConfig.TASK_PARTITION, 0) % context.getNumReduceTasks());
+        }
+
+        @Override
+        public void map(Object key, Text value, Context context) throws IOException, InterruptedException {
+            // Scan the UTF-8 bytes of the line, decoding only multi-byte characters
+            int length = LanguageNormalizer.countLetters(value.getBytes(), 0, value.getLength(), letterTable);
+            totalLetters.increment(length);
+
+            for (int i = 0; emitCounts && i < length; i++) {
+                context.write(totalCountKey, one);
+            }
+        }
+    }
+
+    // Mapper: counts the letters of the task in memory and writes the count once, in cleanup
+    public static class InMapperCount extends Mapper<Object, Text, IntWritable, LongWritable> {
+        private static final IntWritable totalCountKey = new IntWritable();
+        private long letterCount = 0;
+        private LongWritable charCount = new LongWritable();
+        private LetterHistogram histogram;
+        private ParallelLetterCounter parallelCounter;
+        private static String language;
+        private static Integer numReducers;
+
+        @Override
+        protected void setup(Context context) {
+            // Get the language from the context configuration
+            if (language == null)
+                language = context.getConfiguration().get("language");
+            numReducers = context.getNumReduceTasks();
+
+            // With several map threads the lines are counted by the threads of a parallel counter, otherwise
+            // by a histogram whose letters are summed in cleanup
+            int mapThreads = context.getConfiguration().getInt("mapThreads", 1);
+            if (mapThreads > 1)
+                parallelCounter = new ParallelLetterCounter(mapThreads, language);
+            else
+                histogram = new LetterHistogram(LanguageNormalizer.letterTable(language), new long[LanguageNormalizer.alphabet(language).length()]);
+        }
+
+        @Override
+        public void map(Object key, Text value, Context context) throws IOException, InterruptedException {
+            // Count the ASCII bytes of the line by value and the letters of its multi-byte characters
+            if (parallelCounter != null)
+                parallelCounter.add(value.getBytes(), 0, value.getLength());
+            else
+                histogram.add(value.getBytes(), 0, value.getLength());
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            // Sum the counts of the threads once they have counted every line
+            if (parallelCounter != null) {
+                for (long count : parallelCounter.finish()) {
+                    letterCount += count;
+                }
+            } else {
+                letterCount += histogram.flush();
+            }
+
+            // Add the letters of the task to the total letter count counter
+            context.getCounter(LetterCounter.TOTAL_LETTERS).increment(letterCount);
+
+            // Write the character count to the reducer selected by the task partition.
+            // Without reducers the total letter count is only carried by the counter
+            if (letterCount > 0 && numReducers > 0) {
+                totalCountKey.set(context.getConfiguration().getInt(MRJobConfig.TASK_PARTITION, 0) % numReducers);
+                charCount.set(letterCount);
+                context.write(totalCountKey, charCount);
+            }
+        }
+    }
+
+    // Combiner: sums up the counts of the task
+    public static class CombinerCount extends Reducer<IntWritable, LongWritable, IntWritable, LongWritable> {
+        private LongWritable result = new LongWritable();
+
+        @Override
+        public void reduce(IntWritable key, Iterable<LongWritable> values, Context context) throws IOException, InterruptedException {
+            long sum = 0;
+            for (LongWritable val : values) {
+                sum += val.get();
+            }
+            result.set(sum);
+            context.write(key, result);
+        }
+    }
+
+    public static class LetterCountPartitioner extends Partitioner<IntWritable, LongWritable> {
+        @Override
+        public int getPartition(IntWritable key, LongWritable value, int numReduceTasks) {
+            return key.get() % numReduceTasks;
+        }
+    }
+
+    // Reducer: sums up the counts received from the mappers, the partial sums of the reducers are added
+    // together by the REDUCED_LETTERS counter
+    public static class ReducerCount extends Reducer<IntWritable, LongWritable, Text, LongWritable> {
+        private static final Text totalCountKey = new Text("total_count");
+        private LongWritable result = new LongWritable();
+
+        @Override
+        public void reduce(IntWritable key, Iterable<LongWritable> values, Context context) throws IOException, InterruptedException {
+            long sum = 0;
+            for (LongWritable val : values) {
+                sum += val.get();
+            }
+            result.set(sum);
+            context.getCounter(LetterCounter.REDUCED_LETTERS).increment(sum);
+            context.write(totalCountKey, result);
+        }
+    }
+
+    public static Job configureCountJob(String inputFile, String countFolder, Configuration conf) throws IOException {
+        System.out.println("Configuring letter count job");
+
+        Job letterCountJob = Job.getInstance(conf, "Letter Count");
+
+        // Set classes for job, the mapper and the combiner depend on the aggregation strategy
+        letterCountJob.setJarByClass(LetterCount.class);
+        AggregationStrategy.of(conf).configure(letterCountJob, MapperCount.class, InMapperCount.class, CombinerCount.class);
+        letterCountJob.setPartitionerClass(LetterCountPartitioner.class);
+        letterCountJob.setReducerClass(ReducerCount.class);
+
+        // Set output types
+        letterCountJob.setMapOutputKeyClass(IntWritable.class);
+        letterCountJob.setMapOutputValueClass(LongWritable.class);
+        letterCountJob.setOutputKeyClass(Text.class);
+        letterCountJob.setOutputValueClass(LongWritable.class);
+
+        // Set the number of reducers, when the total is read from the counter the job is map-only and writes nothing
+        if (conf.get("totalSource", "counter").equals("counter"))
+            letterCountJob.setNumReduceTasks(0);
+        else
+            letterCountJob.setNumReduceTasks(conf.getInt("numReducers", 1));
+
+        // Set the input and output paths
+        FileInputFormat.addInputPath(letterCountJob, new Path(inputFile));
+        FileOutputFormat.setOutputPath(letterCountJob, new Path(countFolder));
+
+        // Set the input and output formats, nothing is written when the total is read from a counter
+        ChunkInputFormat.configureInputFormat(letterCountJob, conf);
+        if (!conf.get("totalSource", "counter").equals("output"))
+            letterCountJob.setOutputFormatClass(NullOutputFormat.class);
+        else if (conf.get("outputFormat", "text").equals("sequence"))
+            letterCountJob.setOutputFormatClass(SequenceFileOutputFormat.class);
+        else
+            letterCountJob.setOutputFormatClass(TextOutputFormat.class);
+
+        System.out.println("Configured letter count job");
+        return letterCountJob;
+    }
+}
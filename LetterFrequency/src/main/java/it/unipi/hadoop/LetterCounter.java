@@ -0,0 +1,15 @@
+package it.unipi.hadoop;
+
+// Custom counters incremented by the mappers and read by the driver once the job is completed
+public enum LetterCounter {
+    // Letters counted by the mappers
+    TOTAL_LETTERS,
+    // Partial sums of the letter count reducers
+    REDUCED_LETTERS,
+    // N-grams counted by the n-gram mappers
+    TOTAL_NGRAMS,
+    // Flushes of the in-mapper aggregation before the end of its task, once its budget is reached
+    AGGREGATION_FLUSHES,
+    // Records written to the context by those flushes
+    FLUSHED_RECORDS
+}
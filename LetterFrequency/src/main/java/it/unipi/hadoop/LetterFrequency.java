@@ -0,0 +1,299 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.ByteWritable;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class LetterFrequency {
+
+    // Mapper: emits a count of 1 for each letter
+    public static class MapperFrequency extends Mapper<Object, Text, Text, LongWritable> {
+        private static final LongWritable one = new LongWritable(1);
+        private Text[] characters;
+        private byte[] letterTable;
+        private byte[] ordinals = new byte[0];
+        private Counter totalLetters;
+        private static String language;
+
+        @Override
+        protected void setup(Context context) {
+            // Get the language from the context configuration
+            if (language == null)
+                language = context.getConfiguration().get("language");
+
+            // Create one reusable key for each letter of the alphabet, indexed by the letter ordinal
+            String alphabet = LanguageNormalizer.alphabet(language);
+            characters = new Text[alphabet.length()];
+            for (int i = 0; i < characters.length; i++) {
+                characters[i] = new Text(alphabet.substring(i, i + 1));
+            }
+            letterTable = LanguageNormalizer.letterTable(language);
+            totalLetters = context.getCounter(LetterCounter.TOTAL_LETTERS);
+        }
+
+        @Override
+        protected void map(Object key, Text value, Context context) throws IOException, InterruptedException {
+            // Scan the UTF-8 bytes of the line and keep the ordinal of each letter, decoding only multi-byte characters
+            if (ordinals.length < value.getLength())
+                ordinals = new byte[value.getLength()];
+            int length = LanguageNormalizer.ordinals(value.getBytes(), 0, value.getLength(), ordinals, letterTable);
+            totalLetters.increment(length);
+
+            //Emits each letter found in the input text with a count of 1
+            for (int i = 0; i < length; i++) {
+                context.write(characters[ordinals[i]], one);
+            }
+        }
+    }
+
+    // Mapper: counts the letters of the task in memory and writes the count of each letter once, in cleanup
+    public static class InMapperFrequency extends Mapper<Object, Text, Text, LongWritable> {
+        private long[] letterCounts;
+        private String alphabet;
+        private byte[] encodedAlphabet;
+        private Text character = new Text();
+        private LongWritable charCount = new LongWritable();
+        private LetterHistogram histogram;
+        private ParallelLetterCounter parallelCounter;
+        private static String language;
+
+        @Override
+        protected void setup(Context context) {
+            // Get the language from the context configuration
+            if (language == null)
+                language = context.getConfiguration().get("language");
+
+            // One counter for each letter of the alphabet, indexed by the letter ordinal
+            alphabet = LanguageNormalizer.alphabet(language);
+            encodedAlphabet = alphabet.getBytes(StandardCharsets.UTF_8);
+            letterCounts = new long[alphabet.length()];
+
+            // With several map threads the lines are counted by the threads of a parallel counter, otherwise
+            // by a histogram folded into the counters in cleanup
+            int mapThreads = context.getConfiguration().getInt("mapThreads", 1);
+            if (mapThreads > 1)
+                parallelCounter = new ParallelLetterCounter(mapThreads, language);
+            else
+                histogram = new LetterHistogram(LanguageNormalizer.letterTable(language), letterCounts);
+        }
+
+        @Override
+        public void map(Object key, Text value, Context context) throws IOException, InterruptedException {
+            // Count the ASCII bytes of the line by value and the letters of its multi-byte characters
+            if (parallelCounter != null)
+                parallelCounter.add(value.getBytes(), 0, value.getLength());
+            else
+                histogram.add(value.getBytes(), 0, value.getLength());
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            // Merge the counts of the threads once they have counted every line, or fold the histogram
+            if (parallelCounter != null)
+                letterCounts = parallelCounter.finish();
+            else
+                histogram.flush();
+
+            // Add the letters of the task to the total letter count counter
+            long letterCount = 0;
+            for (long count : letterCounts) {
+                letterCount += count;
+            }
+            context.getCounter(LetterCounter.TOTAL_LETTERS).increment(letterCount);
+
+            // Write the character counts to the context, the key is set from the encoded alphabet
+            // where each letter takes one byte if it is ASCII and two bytes otherwise
+            int offset = 0;
+            for (int ordinal = 0; ordinal < letterCounts.length; ordinal++) {
+                int encodedLength = (alphabet.charAt(ordinal) < 0x80) ? 1 : 2;
+                if (letterCounts[ordinal] > 0) {
+                    character.set(encodedAlphabet, offset, encodedLength);
+                    charCount.set(letterCounts[ordinal]);
+                    context.write(character, charCount);
+                }
+                offset += encodedLength;
+            }
+        }
+    }
+
+    public static class CombinerFrequency extends Reducer<Text, LongWritable, Text, LongWritable> {
+        private LongWritable result = new LongWritable();
+
+        @Override
+        public void reduce(Text key, Iterable<LongWritable> values, Context context) throws IOException, InterruptedException {
+            long sum = 0;
+
+            // Combine the counts of the same letter
+            for (LongWritable value : values) {
+                sum += value.get();
+            }
+            result.set(sum);
+
+            // Write the key and the aggregated count to the context
+            context.write(key, result);
+        }
+    }
+
+    public static class ReducerFrequency extends Reducer<Text, LongWritable, Writable, DoubleWritable> {
+        private DoubleWritable result = new DoubleWritable();
+        private ByteWritable letter = new ByteWritable();
+        private byte[] letterTable;
+        private boolean binaryOutput;
+        private static Long TEXT_LENGTH;
+
+        @Override
+        protected void setup(Context context) {
+            // Get the total letter count from the context configuration
+            if (TEXT_LENGTH == null)
+                TEXT_LENGTH = context.getConfiguration().getLong("totalLetterCount", 0);
+
+            // Binary output identifies each letter by its ordinal instead of its text
+            binaryOutput = context.getConfiguration().get("outputFormat", "text").equals("sequence");
+            letterTable = LanguageNormalizer.letterTable(context.getConfiguration().get("language"));
+        }
+
+        @Override
+        public void reduce(Text key, Iterable<LongWritable> values, Context context) throws IOException, InterruptedException {
+            long sum = 0;
+
+            // Combine the counts of the same letter and evaluate the frequency
+            for (LongWritable value : values) {
+                sum += value.get();
+            }
+            result.set((double) sum / TEXT_LENGTH);
+
+            // Write the result to the context
+            if (binaryOutput) {
+                letter.set(letterTable[key.charAt(0)]);
+                context.write(letter, result);
+            } else {
+                context.write(key, result);
+            }
+        }
+    }
+
+    public static class ReducerCount extends Reducer<Text, LongWritable, Writable, LongWritable> {
+        private LongWritable result = new LongWritable();
+        private ByteWritable letter = new ByteWritable();
+        private byte[] letterTable;
+        private boolean binaryOutput;
+
+        @Override
+        protected void setup(Context context) {
+            // Binary output identifies each letter by its ordinal instead of its text
+            binaryOutput = context.getConfiguration().get("outputFormat", "text").equals("sequence");
+            letterTable = LanguageNormalizer.letterTable(context.getConfiguration().get("language"));
+        }
+
+        @Override
+        public void reduce(Text key, Iterable<LongWritable> values, Context context) throws IOException, InterruptedException {
+            long sum = 0;
+
+            // Combine the counts of the same letter without dividing them by the total letter count
+            for (LongWritable value : values) {
+                sum += value.get();
+            }
+            result.set(sum);
+
+            // Write the result to the context
+            if (binaryOutput) {
+                letter.set(letterTable[key.charAt(0)]);
+                context.write(letter, result);
+            } else {
+                context.write(key, result);
+            }
+        }
+    }
+
+    public static Job configureFrequencyJob(String tempOutputFile, long totalLetterCount, String outputFile, Configuration conf) throws IOException {
+        System.out.println("Configuring letter frequency job");
+
+        // Set the total letter count in the configuration
+        conf.setLong("totalLetterCount", totalLetterCount);
+
+        Job letterFrequencyJob = Job.getInstance(conf, "LetterFrequency");
+
+        // Set classes for job, the mapper and the combiner depend on the aggregation strategy
+        letterFrequencyJob.setJarByClass(LetterFrequency.class);
+        AggregationStrategy.of(conf).configure(letterFrequencyJob, MapperFrequency.class, InMapperFrequency.class, CombinerFrequency.class);
+        letterFrequencyJob.setPartitionerClass(LetterPartitioner.class);
+        letterFrequencyJob.setReducerClass(ReducerFrequency.class);
+
+        // Set output types
+        letterFrequencyJob.setMapOutputKeyClass(Text.class);
+        letterFrequencyJob.setMapOutputValueClass(LongWritable.class);
+        letterFrequencyJob.setOutputValueClass(DoubleWritable.class);
+
+        // Set the number of reducers
+        letterFrequencyJob.setNumReduceTasks(conf.getInt("numReducers", 1));
+
+        // Set the input and output paths
+        FileInputFormat.addInputPath(letterFrequencyJob, new Path(tempOutputFile));
+        FileOutputFormat.setOutputPath(letterFrequencyJob, new Path(outputFile));
+
+        // Set the input and output formats, binary output keys are the letter ordinals
+        ChunkInputFormat.configureInputFormat(letterFrequencyJob, conf);
+        if (conf.get("outputFormat", "text").equals("sequence")) {
+            letterFrequencyJob.setOutputKeyClass(ByteWritable.class);
+            letterFrequencyJob.setOutputFormatClass(SequenceFileOutputFormat.class);
+        } else {
+            letterFrequencyJob.setOutputKeyClass(Text.class);
+            letterFrequencyJob.setOutputFormatClass(TextOutputFormat.class);
+        }
+
+        System.out.println("Configured letter frequency job");
+        return letterFrequencyJob;
+    }
+
+    public static Job configureFusedJob(String inputFile, String outputFile, Configuration conf) throws IOException {
+        System.out.println("Configuring letter count+frequency job");
+
+        Job letterFrequencyJob = Job.getInstance(conf, "LetterCountFrequency");
+
+        // Set classes for job, the mapper and the combiner depend on the aggregation strategy
+        letterFrequencyJob.setJarByClass(LetterFrequency.class);
+        AggregationStrategy.of(conf).configure(letterFrequencyJob, MapperFrequency.class, InMapperFrequency.class, CombinerFrequency.class);
+        letterFrequencyJob.setPartitionerClass(LetterPartitioner.class);
+        letterFrequencyJob.setReducerClass(ReducerCount.class);
+
+        // Set output types, the reducers write the count of each letter instead of its frequency
+        letterFrequencyJob.setMapOutputKeyClass(Text.class);
+        letterFrequencyJob.setMapOutputValueClass(LongWritable.class);
+        letterFrequencyJob.setOutputValueClass(LongWritable.class);
+
+        // Set the number of reducers
+        letterFrequencyJob.setNumReduceTasks(conf.getInt("numReducers", 1));
+
+        // Set the input and output paths
+        FileInputFormat.addInputPath(letterFrequencyJob, new Path(inputFile));
+        FileOutputFormat.setOutputPath(letterFrequencyJob, new Path(outputFile));
+
+        // Set the input and output formats, binary output keys are the letter ordinals
+        ChunkInputFormat.configureInputFormat(letterFrequencyJob, conf);
+        if (conf.get("outputFormat", "text").equals("sequence")) {
+            letterFrequencyJob.setOutputKeyClass(ByteWritable.class);
+            letterFrequencyJob.setOutputFormatClass(SequenceFileOutputFormat.class);
+        } else {
+            letterFrequencyJob.setOutputKeyClass(Text.class);
+            letterFrequencyJob.setOutputFormatClass(TextOutputFormat.class);
+        }
+
+        System.out.println("Configured letter count+frequency job");
+        return letterFrequencyJob;
+    }
+}
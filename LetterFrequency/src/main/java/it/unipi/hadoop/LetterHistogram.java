@@ -0,0 +1,238 @@
+package it.unipi.hadoop;
+
+// Letter counts of UTF-8 text split in two paths. The ASCII bytes, nearly all of the English corpora, are only
+// counted by byte value in small tables; lowercasing and classifying them through the letter table is done once
+// for each of the 128 values when the tables are folded into the letter counts. The non ASCII bytes are decoded
+// and looked up one character at a time as in LanguageNormalizer. The ASCII path runs on the Vector API kernel
+// when the JVM has it, on the scalar kernel otherwise
+public class LetterHistogram {
+
+    // Kernel counting the bytes of a run of ASCII bytes into the byte tables
+    public interface AsciiKernel {
+
+        /**
+            count method adds each byte of the ASCII run starting at offset to the byte tables, spreading
+            consecutive bytes over the tables, and stops at the first non ASCII byte.
+
+            @param utf8  The UTF-8 encoded text.
+            @param offset  The index of the first byte to count.
+            @param end  The index following the last byte that can be counted.
+            @param byteCounts  The byte tables, each indexed by byte value.
+            @return  The index of the first non ASCII byte, or end.
+         */
+        int count(byte[] utf8, int offset, int end, int[][] byteCounts);
+    }
+
+    // Kernel checking eight bytes at a time for a non ASCII byte, then counting them into the four tables
+    public static class ScalarKernel implements AsciiKernel {
+
+        @Override
+        public int count(byte[] utf8, int offset, int end, int[][] byteCounts) {
+            int[] counts0 = byteCounts[0];
+            int[] counts1 = byteCounts[1];
+            int[] counts2 = byteCounts[2];
+            int[] counts3 = byteCounts[3];
+
+            // Consecutive bytes go to different tables, so runs of the same byte do not wait on each other's increments
+            int i = offset;
+            while (end - i >= 8) {
+                int b0 = utf8[i], b1 = utf8[i + 1], b2 = utf8[i + 2], b3 = utf8[i + 3];
+                int b4 = utf8[i + 4], b5 = utf8[i + 5], b6 = utf8[i + 6], b7 = utf8[i + 7];
+                if ((b0 | b1 | b2 | b3 | b4 | b5 | b6 | b7) < 0)
+                    break;
+                counts0[b0]++;
+                counts1[b1]++;
+                counts2[b2]++;
+                counts3[b3]++;
+                counts0[b4]++;
+                counts1[b5]++;
+                counts2[b6]++;
+                counts3[b7]++;
+                i += 8;
+            }
+
+            // Count the bytes before the next non ASCII byte or the end one at a time
+            while (i < end && utf8[i] >= 0) {
+                counts0[utf8[i]]++;
+                i++;
+            }
+            return i;
+        }
+
+        @Override
+        public String toString() {
+            return "scalar";
+        }
+    }
+
+    // Class of the Vector API kernel, compiled only by builds on JDK 17 and later
+    private static final String VECTOR_KERNEL = "it.unipi.hadoop.VectorAsciiKernel";
+
+    // System property choosing the kernel: "auto" (the default) for the vector kernel when available, or "scalar"
+    public static final String KERNEL_PROPERTY = "letterHistogram.kernel";
+
+    // Number of byte tables the consecutive bytes are spread over
+    private static final int TABLES = 4;
+
+    // Length from which count goes through the byte tables, whose fold costs more than counting shorter inputs
+    private static final int MIN_LENGTH = 4096;
+
+    private static final AsciiKernel KERNEL = loadKernel();
+
+    private final byte[] table;
+    private final long[] letterCounts;
+    private final AsciiKernel kernel;
+    private final int[][] byteCounts = new int[TABLES][128];
+    private long multiByteLetters;
+    private long pendingBytes;
+
+    /**
+        LetterHistogram constructor creates a histogram adding to the given letter counts, on the kernel
+        chosen for the JVM.
+
+        @param table  The letter table of the language.
+        @param letterCounts  The counters, indexed by letter ordinal.
+     */
+    public LetterHistogram(byte[] table, long[] letterCounts) {
+        this(table, letterCounts, KERNEL);
+    }
+
+    public LetterHistogram(byte[] table, long[] letterCounts, AsciiKernel kernel) {
+        this.table = table;
+        this.letterCounts = letterCounts;
+        this.kernel = kernel;
+    }
+
+    /**
+        add method counts the letters of UTF-8 bytes. The letters of the non ASCII characters are added to
+        the letter counts right away, the ASCII bytes only once the histogram is flushed.
+
+        @param utf8  The UTF-8 encoded text.
+        @param offset  The index of the first byte to count.
+        @param length  The number of bytes to count.
+     */
+    public void add(byte[] utf8, int offset, int length) {
+        // No table counter can exceed the bytes added since the last flush, which are kept below the int range
+        if (pendingBytes > Integer.MAX_VALUE - length)
+            flush();
+        pendingBytes += length;
+
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            i = kernel.count(utf8, i, end, byteCounts);
+            if (i < end) {
+                int decoded = LanguageNormalizer.decodeMultiByte(utf8, i, end);
+                byte ordinal = table[decoded & 0xFFFF];
+                if (ordinal != LanguageNormalizer.NOT_A_LETTER) {
+                    letterCounts[ordinal]++;
+                    multiByteLetters++;
+                }
+                i += decoded >>> 16;
+            }
+        }
+    }
+
+    /**
+        count method counts the letters of UTF-8 bytes into the letter counts right away, so a caller counting
+        many chunks or records reuses one histogram instead of creating one for each. Inputs shorter than
+        MIN_LENGTH are counted by the character loop of LanguageNormalizer. It is not mixed with add.
+
+        @param utf8  The UTF-8 encoded text.
+        @param offset  The index of the first byte to count.
+        @param length  The number of bytes to count.
+        @return  The number of letters found.
+     */
+    public long count(byte[] utf8, int offset, int length) {
+        if (length < MIN_LENGTH)
+            return LanguageNormalizer.countLetters(utf8, offset, length, letterCounts, table);
+        add(utf8, offset, length);
+        return flush();
+    }
+
+    /**
+        flush method folds the byte tables into the letter counts, each byte value going through the letter
+        table once, and clears them.
+
+        @return  The number of letters counted since the previous flush.
+     */
+    public long flush() {
+        long letters = multiByteLetters;
+        for (int b = 0; b < 128; b++) {
+            long count = 0;
+            for (int[] counts : byteCounts) {
+                count += counts[b];
+                counts[b] = 0;
+            }
+
+            byte ordinal = table[b];
+            if (count > 0 && ordinal != LanguageNormalizer.NOT_A_LETTER) {
+                letterCounts[ordinal] += count;
+                letters += count;
+            }
+        }
+
+        multiByteLetters = 0;
+        pendingBytes = 0;
+        return letters;
+    }
+
+    /**
+        kernel method returns the kernel of the ASCII path chosen for this JVM.
+
+        @return  The kernel.
+     */
+    public static AsciiKernel kernel() {
+        return KERNEL;
+    }
+
+    /**
+        loadKernel method loads the Vector API kernel unless the "letterHistogram.kernel" system property
+        asks for the scalar one. The kernel is missing from builds on JDKs before 17, cannot be loaded by
+        JVMs before 17, and cannot be linked without "--add-modules jdk.incubator.vector"; the scalar kernel
+        is used in all these cases, and when the vector kernel does not count like the scalar one.
+
+        @return  The kernel of the ASCII path.
+     */
+    private static AsciiKernel loadKernel() {
+        AsciiKernel scalar = new ScalarKernel();
+        if (System.getProperty(KERNEL_PROPERTY, "auto").equals("scalar"))
+            return scalar;
+
+        try {
+            AsciiKernel vector = (AsciiKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+            return countsLike(vector, scalar) ? vector : scalar;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return scalar;
+        }
+    }
+
+    private static boolean countsLike(AsciiKernel kernel, AsciiKernel reference) {
+        // ASCII runs of every length around the vector sizes, separated by two bytes sequences
+        byte[] sample = new byte[1024];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = (byte) ((i % 131 == 130) ? 0xC3 : (i % 131 == 0 && i > 0) ? 0xA7 : 32 + i % 95);
+        }
+
+        int[][] expected = new int[TABLES][128];
+        int[][] actual = new int[TABLES][128];
+        for (int i = 0; i < sample.length; ) {
+            int next = reference.count(sample, i, sample.length, expected);
+            if (kernel.count(sample, i, sample.length, actual) != next)
+                return false;
+            i = next + 2;
+        }
+
+        for (int b = 0; b < 128; b++) {
+            int expectedCount = 0;
+            int actualCount = 0;
+            for (int t = 0; t < TABLES; t++) {
+                expectedCount += expected[t][b];
+                actualCount += actual[t][b];
+            }
+            if (expectedCount != actualCount)
+                return false;
+        }
+        return true;
+    }
+}
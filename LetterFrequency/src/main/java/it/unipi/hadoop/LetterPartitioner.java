@@ -0,0 +1,90 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Partitioner;
+
+// Partitioner: splits the alphabet into contiguous ranges of letters with about the same expected number of
+// occurrences, so the reducers get a balanced load and their outputs, taken in order, are globally sorted
+public class LetterPartitioner extends Partitioner<Text, LongWritable> implements Configurable {
+
+    // Expected letter frequencies by ordinal, measured on the Lord of the Rings datasets
+    private static final double[] ENGLISH_PROFILE = {
+            0.0837, 0.0163, 0.0165, 0.0523, 0.1250, 0.0230, 0.0246, 0.0659, 0.0613, 0.0005, 0.0089, 0.0436, 0.0245,
+            0.0705, 0.0788, 0.0129, 0.0005, 0.0610, 0.0610, 0.0889, 0.0260, 0.0080, 0.0266, 0.0006, 0.0187, 0.0004
+    };
+    private static final double[] ITALIAN_PROFILE = {
+            0.1106, 0.0113, 0.0415, 0.0404, 0.1152, 0.0118, 0.0210, 0.0116, 0.1017, 0.0000, 0.0002, 0.0611, 0.0288,
+            0.0726, 0.1010, 0.0263, 0.0046, 0.0707, 0.0541, 0.0563, 0.0324, 0.0213, 0.0002, 0.0000, 0.0004, 0.0048
+    };
+    private static final double[] TURKISH_PROFILE = {
+            0.1168, 0.0279, 0.0082, 0.0549, 0.0911, 0.0059, 0.0162, 0.0122, 0.0814, 0.0001, 0.0455, 0.0610, 0.0323,
+            0.0720, 0.0297, 0.0080, 0.0000, 0.0745, 0.0261, 0.0293, 0.0330, 0.0103, 0.0002, 0.0000, 0.0342, 0.0152,
+            0.0114, 0.0081, 0.0203, 0.0105, 0.0466, 0.0170
+    };
+
+    private Configuration conf;
+    private byte[] letterTable;
+    private double[] profile;
+    private int[] partitions;
+
+    @Override
+    public void setConf(Configuration conf) {
+        this.conf = conf;
+        String language = conf.get("language");
+        letterTable = LanguageNormalizer.letterTable(language);
+        profile = profile(language);
+    }
+
+    @Override
+    public Configuration getConf() {
+        return conf;
+    }
+
+    @Override
+    public int getPartition(Text key, LongWritable value, int numReduceTasks) {
+        if (partitions == null)
+            partitions = rangePartitions(profile, numReduceTasks);
+        return partitions[letterTable[key.charAt(0)]];
+    }
+
+    /**
+        rangePartitions method assigns every letter ordinal to a partition, so that the partitions are contiguous
+        ranges of the alphabet and the expected occurrences of each range are as close as possible. A letter goes
+        to the partition containing the midpoint of its share of the cumulative frequency.
+
+        @param profile  The expected frequency of each letter ordinal.
+        @param numPartitions  The number of partitions.
+        @return  The partition of each letter ordinal, never decreasing with the ordinal.
+     */
+    public static int[] rangePartitions(double[] profile, int numPartitions) {
+        double total = 0;
+        for (double weight : profile) {
+            total += weight;
+        }
+
+        int[] partitions = new int[profile.length];
+        double cumulative = 0;
+        for (int ordinal = 0; ordinal < profile.length; ordinal++) {
+            double midpoint = (cumulative + profile[ordinal] / 2) / total;
+            partitions[ordinal] = Math.min(numPartitions - 1, (int) (midpoint * numPartitions));
+            cumulative += profile[ordinal];
+        }
+        return partitions;
+    }
+
+    public static double[] profile(String language) {
+        switch (language.toLowerCase()) {
+            case "en":
+                return ENGLISH_PROFILE;
+            case "it":
+                return ITALIAN_PROFILE;
+            case "trk":
+                return TURKISH_PROFILE;
+            default:
+                throw new IllegalArgumentException("Unsupported language: " + language);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class LocalLetterFrequency {
+
+    // Inputs smaller than this are counted in the driver JVM unless "localThreshold" says otherwise
+    public static final long DEFAULT_LOCAL_THRESHOLD = 1024 * 1024;
+
+    // Number of bytes below which a task counts its range instead of splitting it further
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    // Task counting the letters of a range of the input, returning one counter for each letter ordinal
+    private static class CountTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int end;
+        private final String language;
+
+        CountTask(ByteBuffer buffer, int start, int end, String language) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+            this.language = language;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (end - start > CHUNK_SIZE) {
+                // Split the range on a character boundary, so no UTF-8 sequence is cut in two
+                int middle = start + (end - start) / 2;
+                while (middle < end && (buffer.get(middle) & 0xC0) == 0x80) {
+                    middle++;
+                }
+
+                CountTask left = new CountTask(buffer, start, middle, language);
+                CountTask right = new CountTask(buffer, middle, end, language);
+                left.fork();
+                long[] letterCounts = right.compute();
+                long[] leftCounts = left.join();
+                for (int i = 0; i < letterCounts.length; i++) {
+                    letterCounts[i] += leftCounts[i];
+                }
+                return letterCounts;
+            }
+
+            // Copy the range out of the shared buffer and count its letters
+            byte[] bytes = new byte[end - start];
+            ByteBuffer range = buffer.duplicate();
+            range.position(start);
+            range.get(bytes);
+
+            long[] letterCounts = new long[LanguageNormalizer.alphabet(language).length()];
+            new LetterHistogram(LanguageNormalizer.letterTable(language), letterCounts).count(bytes, 0, bytes.length);
+            return letterCounts;
+        }
+    }
+
+    /**
+        isBelowThreshold method checks whether the input is small enough to be counted in the driver JVM.
+
+        @param inputFile  The path of the input file or directory.
+        @param conf  The configuration object.
+        @return  True if the total length of the input is below the "localThreshold" configuration value.
+     */
+    public static boolean isBelowThreshold(String inputFile, Configuration conf) throws IOException {
+        FileSystem fs = FileSystem.get(conf);
+        long length = fs.getContentSummary(new Path(inputFile)).getLength();
+        return length < conf.getLong("localThreshold", DEFAULT_LOCAL_THRESHOLD);
+    }
+
+    /**
+        countLetters method counts the letters of the input in the driver JVM, without submitting any job.
+
+        @param inputFile  The path of the input file or directory.
+        @param conf  The configuration object.
+        @return  The count of each letter, indexed by the letter ordinal.
+     */
+    public static long[] countLetters(String inputFile, Configuration conf) throws IOException {
+        long[] letterCounts = new long[LanguageNormalizer.alphabet(conf.get("language")).length()];
+        for (long[] fileCounts : countFiles(listFiles(inputFile, conf), conf)) {
+            for (int i = 0; i < letterCounts.length; i++) {
+                letterCounts[i] += fileCounts[i];
+            }
+        }
+        return letterCounts;
+    }
+
+    /**
+        listFiles method lists the files of the input, a directory is listed without its hidden files and
+        the _SUCCESS marker.
+
+        @param inputFile  The path of the input file or directory.
+        @param conf  The configuration object.
+        @return  The status of each input file.
+     */
+    public static List<FileStatus> listFiles(String inputFile, Configuration conf) throws IOException {
+        FileSystem fs = FileSystem.get(conf);
+        List<FileStatus> files = new ArrayList<>();
+        for (FileStatus fileStatus : fs.listStatus(new Path(inputFile))) {
+            String fileName = fileStatus.getPath().getName();
+            if (fileStatus.isFile() && !fileName.startsWith("_") && !fileName.startsWith("."))
+                files.add(fileStatus);
+        }
+        return files;
+    }
+
+    /**
+        countFiles method counts the letters of each file in the driver JVM. Local files are memory-mapped,
+        files of other file systems are read in memory, then every file is split over a fork-join pool of
+        "localThreads" threads.
+
+        @param files  The status of each file to count.
+        @param conf  The configuration object.
+        @return  The count of each letter of each file, indexed by the file and by the letter ordinal.
+     */
+    public static long[][] countFiles(List<FileStatus> files, Configuration conf) throws IOException {
+        FileSystem fs = FileSystem.get(conf);
+        String language = conf.get("language");
+        long[][] fileCounts = new long[files.size()][];
+
+        ForkJoinPool pool = new ForkJoinPool(conf.getInt("localThreads", Runtime.getRuntime().availableProcessors()));
+        try {
+            for (int i = 0; i < fileCounts.length; i++) {
+                ByteBuffer buffer = readFile(fs, files.get(i).getPath());
+                fileCounts[i] = pool.invoke(new CountTask(buffer, 0, buffer.limit(), language));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        return fileCounts;
+    }
+
+    private static ByteBuffer readFile(FileSystem fs, Path file) throws IOException {
+        if (fs instanceof LocalFileSystem) {
+            // The mapping stays valid after the channel is closed
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(((LocalFileSystem) fs).pathToFile(file), "r");
+                 FileChannel channel = randomAccessFile.getChannel()) {
+                if (channel.size() > Integer.MAX_VALUE)
+                    throw new IOException("File too large for the local engine: " + file);
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+
+        byte[] bytes = new byte[(int) fs.getFileStatus(file).getLen()];
+        try (FSDataInputStream in = fs.open(file)) {
+            in.readFully(0, bytes);
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+}
@@ -0,0 +1,115 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Letter counts of a corpus mixing several languages: the language of each record is detected in the mapper and
+// its letters are keyed by (language, letter), like the letters of the datasets of a batch. The combiner, the
+// reducer and the partitioner of the batch job write the counts of each language to its own folder
+public class MixedLanguageFrequency {
+
+    // Mapper: emits a count of 1 for each letter, keyed by the language detected for its record and the letter ordinal
+    public static class MapperMixed extends Mapper<Object, Text, DatasetLetter, LongWritable> {
+        private static final LongWritable one = new LongWritable(1);
+        private DatasetLetter languageLetter = new DatasetLetter();
+        private LanguageDetector detector = new LanguageDetector();
+        private long[] recordCounts = new long[32];
+
+        @Override
+        protected void map(Object key, Text value, Context context) throws IOException, InterruptedException {
+            int language = detector.detect(value.getBytes(), 0, value.getLength());
+            if (language < 0)
+                return;
+
+            // Fold the letters of the record into the alphabet of its language
+            Arrays.fill(recordCounts, 0);
+            detector.addLetterCounts(language, recordCounts);
+
+            //Emits each letter found in the record with a count of 1
+            languageLetter.setDataset(language);
+            for (int ordinal = 0; ordinal < recordCounts.length; ordinal++) {
+                languageLetter.setLetter((byte) ordinal);
+                for (long i = 0; i < recordCounts[ordinal]; i++) {
+                    context.write(languageLetter, one);
+                }
+            }
+        }
+    }
+
+    // Mapper: counts the letters of each detected language in memory and writes their counts once, in cleanup
+    public static class InMapperMixed extends Mapper<Object, Text, DatasetLetter, LongWritable> {
+        private long[][] letterCounts = new long[LanguageDetector.LANGUAGES.length][];
+        private LanguageDetector detector = new LanguageDetector();
+        private DatasetLetter languageLetter = new DatasetLetter();
+        private LongWritable charCount = new LongWritable();
+
+        @Override
+        protected void setup(Context context) {
+            for (int language = 0; language < letterCounts.length; language++) {
+                letterCounts[language] = new long[LanguageNormalizer.alphabet(LanguageDetector.LANGUAGES[language]).length()];
+            }
+        }
+
+        @Override
+        public void map(Object key, Text value, Context context) {
+            int language = detector.detect(value.getBytes(), 0, value.getLength());
+            if (language >= 0)
+                detector.addLetterCounts(language, letterCounts[language]);
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            for (int language = 0; language < letterCounts.length; language++) {
+                languageLetter.setDataset(language);
+                for (int ordinal = 0; ordinal < letterCounts[language].length; ordinal++) {
+                    if (letterCounts[language][ordinal] > 0) {
+                        languageLetter.setLetter((byte) ordinal);
+                        charCount.set(letterCounts[language][ordinal]);
+                        context.write(languageLetter, charCount);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+        configureLanguages method stores the detected languages in the configuration as the datasets of a batch,
+        each named after its language, so the batch reducer writes the counts of each language to its folder.
+
+        @param conf  The configuration object.
+        @return  The names of the languages.
+     */
+    public static String[] configureLanguages(Configuration conf) {
+        conf.setStrings("datasetLanguages", LanguageDetector.LANGUAGES);
+        conf.setStrings("datasetNames", LanguageDetector.LANGUAGES);
+        return LanguageDetector.LANGUAGES.clone();
+    }
+
+    public static Job configureMixedJob(String inputFile, String outputFolder, Configuration conf) throws IOException {
+        System.out.println("Configuring mixed language frequency job");
+
+        Job mixedJob = Job.getInstance(conf, "Mixed Language Frequency");
+
+        // Set classes for job, the mapper and the combiner depend on the aggregation strategy
+        mixedJob.setJarByClass(MixedLanguageFrequency.class);
+        AggregationStrategy.of(conf).configure(mixedJob, MapperMixed.class, InMapperMixed.class, BatchFrequency.CombinerBatch.class);
+
+        // Set the input path and format
+        FileInputFormat.addInputPath(mixedJob, new Path(inputFile));
+        ChunkInputFormat.configureInputFormat(mixedJob, conf);
+
+        // The languages are the datasets of the reducer of the batch job
+        BatchFrequency.configureDatasetOutput(mixedJob, outputFolder, conf);
+
+        System.out.println("Configured mixed language frequency job");
+        return mixedJob;
+    }
+}
@@ -0,0 +1,68 @@
+package it.unipi.hadoop;
+
+// N-grams of consecutive letters packed in an int: every letter takes 5 bits, enough for the ordinals of the
+// largest alphabet, and the first letter is in the most significant bits. Ordinals follow the code point
+// order of the letters, so the packed keys sort like the n-gram strings
+public class NGram {
+
+    public static final int BITS_PER_LETTER = 5;
+
+    // Longest n-gram whose packed key fits in the 31 bits of a non negative int
+    public static final int MAX_LENGTH = 6;
+
+    /**
+        mask method returns the bits used by the packed keys of the n-grams of the given length.
+
+        @param n  The length of the n-grams.
+        @return  The mask of the key bits.
+     */
+    public static int mask(int n) {
+        return (1 << (BITS_PER_LETTER * n)) - 1;
+    }
+
+    /**
+        checkLength method validates the length of the n-grams.
+
+        @param n  The length of the n-grams.
+        @return  The length, if it is supported.
+     */
+    public static int checkLength(int n) {
+        if (n < 1 || n > MAX_LENGTH)
+            throw new IllegalArgumentException("Unsupported n-gram length: " + n + ", it must be between 1 and " + MAX_LENGTH);
+        return n;
+    }
+
+    /**
+        decode method returns the letters of a packed n-gram.
+
+        @param key  The packed n-gram.
+        @param n  The length of the n-gram.
+        @param alphabet  The alphabet of the language.
+        @return  The n-gram.
+     */
+    public static String decode(int key, int n, String alphabet) {
+        char[] letters = new char[n];
+        for (int i = n - 1; i >= 0; i--) {
+            letters[i] = alphabet.charAt(key & ((1 << BITS_PER_LETTER) - 1));
+            key >>>= BITS_PER_LETTER;
+        }
+        return new String(letters);
+    }
+
+    /**
+        rank method returns the position of a packed n-gram among all the n-grams of the alphabet, in order.
+        Unlike the packed key, the rank has no gaps when the alphabet has less than 32 letters.
+
+        @param key  The packed n-gram.
+        @param n  The length of the n-gram.
+        @param alphabetSize  The number of letters of the alphabet.
+        @return  The rank, between 0 and alphabetSize^n - 1.
+     */
+    public static long rank(int key, int n, int alphabetSize) {
+        long rank = 0;
+        for (int i = n - 1; i >= 0; i--) {
+            rank = rank * alphabetSize + ((key >>> (BITS_PER_LETTER * i)) & ((1 << BITS_PER_LETTER) - 1));
+        }
+        return rank;
+    }
+}
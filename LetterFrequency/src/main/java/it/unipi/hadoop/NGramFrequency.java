@@ -0,0 +1,334 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.VIntWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+import java.io.IOException;
+
+// Count of the n-grams of consecutive letters, the n-grams never span a character that is not a letter. The
+// map output keys are the n-grams packed in an int, as NGram encodes them
+public class NGramFrequency {
+
+    // Number of distinct n-grams held by the mapper table unless "ngramTableSize" says otherwise
+    public static final int DEFAULT_TABLE_SIZE = 1 << 20;
+
+    // Memory taken by the mapper table unless "ngramTableMemory" says otherwise
+    public static final long DEFAULT_TABLE_MEMORY = 16L * 1024 * 1024;
+
+    // Mapper: emits a count of 1 for each n-gram
+    public static class MapperNGram extends Mapper<LongWritable, Text, IntWritable, LongWritable> {
+        private static final LongWritable one = new LongWritable(1);
+        private IntWritable ngram = new IntWritable();
+        private int n;
+        private int mask;
+        private byte[] letterTable;
+        private byte[] ordinals = new byte[0];
+        private int window;
+        private int run;
+        private long nextOffset = -1;
+        private Counter totalNGrams;
+
+        @Override
+        protected void setup(Context context) {
+            Configuration conf = context.getConfiguration();
+            n = NGram.checkLength(conf.getInt("ngram", 2));
+            mask = NGram.mask(n);
+            letterTable = LanguageNormalizer.letterTable(conf.get("language"));
+            totalNGrams = context.getCounter(LetterCounter.TOTAL_NGRAMS);
+        }
+
+        @Override
+        protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+            // An n-gram spans two records only if the second one starts where the first one ends, as the
+            // chunks of a file do. Lines lose their terminator, so each line starts a new n-gram
+            if (key.get() != nextOffset)
+                run = 0;
+            nextOffset = key.get() + value.getLength();
+
+            if (ordinals.length < value.getLength())
+                ordinals = new byte[value.getLength()];
+            int length = LanguageNormalizer.characterOrdinals(value.getBytes(), 0, value.getLength(), ordinals, letterTable);
+
+            // Shift each letter into the packed window, a character that is not a letter empties it
+            int ngramCount = 0;
+            for (int i = 0; i < length; i++) {
+                byte ordinal = ordinals[i];
+                if (ordinal == LanguageNormalizer.NOT_A_LETTER) {
+                    run = 0;
+                    continue;
+                }
+                window = ((window << NGram.BITS_PER_LETTER) | ordinal) & mask;
+                if (++run < n)
+                    continue;
+
+                //Emits each n-gram found in the input text with a count of 1
+                ngram.set(window);
+                context.write(ngram, one);
+                ngramCount++;
+            }
+            totalNGrams.increment(ngramCount);
+        }
+    }
+
+    // Mapper: counts the n-grams of the task in memory, in a dense array for bigrams and in a bounded hash table
+    // for longer n-grams, and writes their counts in cleanup or whenever the table is full
+    public static class InMapperNGram extends Mapper<LongWritable, Text, IntWritable, LongWritable> {
+        private int n;
+        private int mask;
+        private byte[] letterTable;
+        private byte[] ordinals = new byte[0];
+        private long[] ngramCounts;
+        private NGramTable ngramTable;
+        private long ngramCount;
+        private int window;
+        private int run;
+        private long nextOffset = -1;
+        private IntWritable ngram = new IntWritable();
+        private LongWritable count = new LongWritable();
+        private Counter flushes;
+        private Counter flushedRecords;
+
+        @Override
+        protected void setup(Context context) {
+            Configuration conf = context.getConfiguration();
+            n = NGram.checkLength(conf.getInt("ngram", 2));
+            mask = NGram.mask(n);
+            letterTable = LanguageNormalizer.letterTable(conf.get("language"));
+
+            // Bigrams fit an array indexed by the packed key, 32x32 counters. Longer n-grams go to a table
+            // bounded by an entry and a memory budget, flushed to the context whenever it is full
+            if (n <= 2)
+                ngramCounts = new long[mask + 1];
+            else
+                ngramTable = new NGramTable(conf.getInt("ngramTableSize", DEFAULT_TABLE_SIZE), conf.getLong("ngramTableMemory", DEFAULT_TABLE_MEMORY));
+            flushes = context.getCounter(LetterCounter.AGGREGATION_FLUSHES);
+            flushedRecords = context.getCounter(LetterCounter.FLUSHED_RECORDS);
+        }
+
+        @Override
+        public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+            // An n-gram spans two records only if the second one starts where the first one ends, as the
+            // chunks of a file do. Lines lose their terminator, so each line starts a new n-gram
+            if (key.get() != nextOffset)
+                run = 0;
+            nextOffset = key.get() + value.getLength();
+
+            if (ordinals.length < value.getLength())
+                ordinals = new byte[value.getLength()];
+            int length = LanguageNormalizer.characterOrdinals(value.getBytes(), 0, value.getLength(), ordinals, letterTable);
+
+            // Shift each letter into the packed window, a character that is not a letter empties it
+            for (int i = 0; i < length; i++) {
+                byte ordinal = ordinals[i];
+                if (ordinal == LanguageNormalizer.NOT_A_LETTER) {
+                    run = 0;
+                    continue;
+                }
+                window = ((window << NGram.BITS_PER_LETTER) | ordinal) & mask;
+                if (++run < n)
+                    continue;
+
+                ngramCount++;
+                if (ngramCounts != null) {
+                    ngramCounts[window]++;
+                } else {
+                    ngramTable.increment(window);
+                    if (ngramTable.isFull()) {
+                        // Partial counts of the split, summed again by the reducers
+                        flushes.increment(1);
+                        flushedRecords.increment(flush(context));
+                    }
+                }
+            }
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            // Add the n-grams of the task to the total n-gram count counter
+            context.getCounter(LetterCounter.TOTAL_NGRAMS).increment(ngramCount);
+
+            // Write the n-gram counts to the context
+            if (ngramCounts != null) {
+                for (int key = 0; key < ngramCounts.length; key++) {
+                    if (ngramCounts[key] > 0) {
+                        ngram.set(key);
+                        count.set(ngramCounts[key]);
+                        context.write(ngram, count);
+                    }
+                }
+            } else {
+                flush(context);
+            }
+        }
+
+        // Writes the counts of the hash table to the context and empties it, returns the number of records written
+        private int flush(Context context) throws IOException, InterruptedException {
+            int records = ngramTable.size();
+            for (int slot = 0; slot < ngramTable.capacity(); slot++) {
+                if (ngramTable.key(slot) >= 0) {
+                    ngram.set(ngramTable.key(slot));
+                    count.set(ngramTable.count(slot));
+                    context.write(ngram, count);
+                }
+            }
+            ngramTable.clear();
+            return records;
+        }
+    }
+
+    public static class CombinerNGram extends Reducer<IntWritable, LongWritable, IntWritable, LongWritable> {
+        private LongWritable result = new LongWritable();
+
+        @Override
+        public void reduce(IntWritable key, Iterable<LongWritable> values, Context context) throws IOException, InterruptedException {
+            long sum = 0;
+
+            // Combine the counts of the same n-gram
+            for (LongWritable value : values) {
+                sum += value.get();
+            }
+            result.set(sum);
+
+            // Write the key and the aggregated count to the context
+            context.write(key, result);
+        }
+    }
+
+    public static class ReducerNGram extends Reducer<IntWritable, LongWritable, Writable, LongWritable> {
+        private LongWritable result = new LongWritable();
+        private Text text = new Text();
+        private VIntWritable packed = new VIntWritable();
+        private String alphabet;
+        private int n;
+        private boolean binaryOutput;
+
+        @Override
+        protected void setup(Context context) {
+            // Binary output identifies each n-gram by its packed key instead of its text
+            binaryOutput = context.getConfiguration().get("outputFormat", "text").equals("sequence");
+            alphabet = LanguageNormalizer.alphabet(context.getConfiguration().get("language"));
+            n = context.getConfiguration().getInt("ngram", 2);
+        }
+
+        @Override
+        public void reduce(IntWritable key, Iterable<LongWritable> values, Context context) throws IOException, InterruptedException {
+            long sum = 0;
+
+            // Combine the counts of the same n-gram
+            for (LongWritable value : values) {
+                sum += value.get();
+            }
+            result.set(sum);
+
+            // Write the result to the context
+            if (binaryOutput) {
+                packed.set(key.get());
+                context.write(packed, result);
+            } else {
+                text.set(NGram.decode(key.get(), n, alphabet));
+                context.write(text, result);
+            }
+        }
+    }
+
+    // Partitioner: splits the n-grams into contiguous ranges, so the reducer outputs taken in order are globally
+    // sorted. The first letter of an n-gram is weighted by the letter profile of the language, the following
+    // letters evenly
+    public static class NGramPartitioner extends Partitioner<IntWritable, LongWritable> implements Configurable {
+        private Configuration conf;
+        private double[] start;
+        private double[] profile;
+        private int n;
+        private int alphabetSize;
+
+        @Override
+        public void setConf(Configuration conf) {
+            this.conf = conf;
+            n = conf.getInt("ngram", 2);
+            double[] letterProfile = LetterPartitioner.profile(conf.get("language"));
+            alphabetSize = letterProfile.length;
+
+            // Share of the expected occurrences of each letter, and of the letters before it
+            double total = 0;
+            for (double weight : letterProfile) {
+                total += weight;
+            }
+            profile = new double[alphabetSize];
+            start = new double[alphabetSize];
+            double cumulative = 0;
+            for (int ordinal = 0; ordinal < alphabetSize; ordinal++) {
+                profile[ordinal] = letterProfile[ordinal] / total;
+                start[ordinal] = cumulative;
+                cumulative += profile[ordinal];
+            }
+        }
+
+        @Override
+        public Configuration getConf() {
+            return conf;
+        }
+
+        @Override
+        public int getPartition(IntWritable key, LongWritable value, int numReduceTasks) {
+            int shift = NGram.BITS_PER_LETTER * (n - 1);
+            int first = key.get() >>> shift;
+
+            // Position of the n-gram between 0 and 1, never decreasing with the packed key
+            double rest = (double) NGram.rank(key.get() & ((1 << shift) - 1), n - 1, alphabetSize) / Math.pow(alphabetSize, n - 1);
+            double position = start[first] + profile[first] * rest;
+            return Math.min(numReduceTasks - 1, (int) (position * numReduceTasks));
+        }
+    }
+
+    public static Job configureNGramJob(String inputFile, String outputFile, Configuration conf) throws IOException {
+        System.out.println("Configuring n-gram count job");
+
+        Job ngramJob = Job.getInstance(conf, "NGramCount");
+
+        // Set classes for job, the mapper and the combiner depend on the aggregation strategy
+        ngramJob.setJarByClass(NGramFrequency.class);
+        AggregationStrategy.of(conf).configure(ngramJob, MapperNGram.class, InMapperNGram.class, CombinerNGram.class);
+        ngramJob.setPartitionerClass(NGramPartitioner.class);
+        ngramJob.setReducerClass(ReducerNGram.class);
+
+        // Set output types, the map output keys are the packed n-grams
+        ngramJob.setMapOutputKeyClass(IntWritable.class);
+        ngramJob.setMapOutputValueClass(LongWritable.class);
+        ngramJob.setOutputValueClass(LongWritable.class);
+
+        // Set the number of reducers
+        ngramJob.setNumReduceTasks(conf.getInt("numReducers", 1));
+
+        // Set the input and output paths
+        FileInputFormat.addInputPath(ngramJob, new Path(inputFile));
+        FileOutputFormat.setOutputPath(ngramJob, new Path(outputFile));
+
+        // Set the input and output formats, binary output keys are the packed n-grams
+        ChunkInputFormat.configureInputFormat(ngramJob, conf);
+        if (conf.get("outputFormat", "text").equals("sequence")) {
+            ngramJob.setOutputKeyClass(VIntWritable.class);
+            ngramJob.setOutputFormatClass(SequenceFileOutputFormat.class);
+        } else {
+            ngramJob.setOutputKeyClass(Text.class);
+            ngramJob.setOutputFormatClass(TextOutputFormat.class);
+        }
+
+        System.out.println("Configured n-gram count job");
+        return ngramJob;
+    }
+}
@@ -0,0 +1,130 @@
+package it.unipi.hadoop;
+
+import java.util.Arrays;
+
+// Open addressing hash table counting packed n-grams with linear probing. The table grows with the number of
+// distinct n-grams until it reaches its entry budget or the next growth would exceed its memory budget: it is
+// then full, and the mapper writes its counts to the context and clears it, so the memory of the in-mapper
+// aggregation stays bounded whatever the number of distinct n-grams of the split
+public class NGramTable {
+
+    // Packed n-grams are never negative
+    private static final int EMPTY = -1;
+
+    // Memory of a slot: an int key and a long count
+    public static final int BYTES_PER_SLOT = Integer.BYTES + Long.BYTES;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private int[] keys;
+    private long[] counts;
+    private int shift;
+    private int size;
+    private final int maxCapacity;
+    private final int maxSize;
+
+    /**
+        NGramTable constructor creates an empty table. The table keeps at least three slots for every two
+        n-grams it holds, so that the probe sequences stay short, and never takes more slots than the
+        memory budget allows.
+
+        @param maxEntries  The number of distinct n-grams the table holds before it is full.
+        @param maxBytes  The memory the slots of the table may take.
+     */
+    public NGramTable(int maxEntries, long maxBytes) {
+        long budgetSlots = Math.max(2, Math.min(MAX_CAPACITY, maxBytes / BYTES_PER_SLOT));
+        this.maxCapacity = Integer.highestOneBit((int) budgetSlots);
+        this.maxSize = Math.max(1, Math.min(maxEntries, loadLimit(maxCapacity)));
+        allocate(Math.min(maxCapacity, INITIAL_CAPACITY));
+    }
+
+    /**
+        increment method adds one occurrence of an n-gram, growing the table if it is too loaded and its
+        memory budget allows it.
+
+        @param key  The packed n-gram.
+     */
+    public void increment(int key) {
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+        }
+        counts[slot]++;
+
+        if (size > loadLimit(keys.length) && keys.length < maxCapacity)
+            grow();
+    }
+
+    public boolean isFull() {
+        return size >= maxSize;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Memory taken by the slots of the table
+    public long footprint() {
+        return (long) keys.length * BYTES_PER_SLOT;
+    }
+
+    // Number of slots, every slot index below it can be passed to key and count
+    public int capacity() {
+        return keys.length;
+    }
+
+    // Packed n-gram in the slot, or a negative value if the slot is empty
+    public int key(int slot) {
+        return keys[slot];
+    }
+
+    public long count(int slot) {
+        return counts[slot];
+    }
+
+    // Empties the table, keeping its slots for the next n-grams
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    // Slot holding the n-gram, or the empty slot where it belongs
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        // Fibonacci hashing spreads the letters of the low bits over the whole table
+        int slot = (key * 0x9E3779B9) >>> shift;
+        while (keys[slot] != key && keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Doubles the slots and moves every n-gram to its slot in the new table
+    private void grow() {
+        int[] oldKeys = keys;
+        long[] oldCounts = counts;
+        allocate(keys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        counts = new long[capacity];
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    // Largest number of n-grams held by the given number of slots, two thirds of them
+    private static int loadLimit(int capacity) {
+        return (int) (capacity * 2L / 3);
+    }
+}
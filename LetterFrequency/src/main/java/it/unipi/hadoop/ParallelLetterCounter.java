@@ -0,0 +1,146 @@
+package it.unipi.hadoop;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Counts the letters of a map task over several threads. The task thread copies its records into chunks and
+// queues them, each worker thread counts the chunks it takes into its own count array, and the arrays are summed
+// once every chunk is counted. Only a few chunks exist at a time, so a task reading faster than the threads count
+// waits for a free chunk instead of buffering its split
+public class ParallelLetterCounter {
+
+    // Number of bytes of records copied into a chunk before it is queued
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    // Chunk of records copied from the task
+    private static class Chunk {
+        byte[] bytes;
+        int length;
+
+        Chunk(int size) {
+            this.bytes = new byte[size];
+        }
+    }
+
+    // Chunk telling the worker that takes it to stop
+    private static final Chunk STOP = new Chunk(0);
+
+    // Worker thread counting the chunks it takes from the queue into its own count array
+    private class Worker extends Thread {
+        final long[] letterCounts;
+        final LetterHistogram histogram;
+
+        Worker(int alphabetLength) {
+            this.letterCounts = new long[alphabetLength];
+            this.histogram = new LetterHistogram(letterTable, letterCounts);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Chunk chunk = queued.take();
+                    if (chunk == STOP)
+                        return;
+                    histogram.count(chunk.bytes, 0, chunk.length);
+                    chunk.length = 0;
+                    free.put(chunk);
+                }
+            } catch (Throwable e) {
+                failure = e;
+                // Keep the task thread from waiting on a chunk that is never returned
+                free.offer(new Chunk(CHUNK_SIZE));
+            }
+        }
+    }
+
+    private final byte[] letterTable;
+    private final Worker[] workers;
+    private final BlockingQueue<Chunk> free;
+    private final BlockingQueue<Chunk> queued;
+    private Chunk current;
+    private volatile Throwable failure;
+
+    /**
+        ParallelLetterCounter constructor starts the worker threads, with two chunks for each of them.
+
+        @param threads  The number of worker threads.
+        @param language  The language of the letters.
+     */
+    public ParallelLetterCounter(int threads, String language) {
+        this.letterTable = LanguageNormalizer.letterTable(language);
+        this.free = new LinkedBlockingQueue<>();
+        this.queued = new LinkedBlockingQueue<>();
+        for (int i = 0; i < 2 * threads; i++) {
+            free.add(new Chunk(CHUNK_SIZE));
+        }
+
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(LanguageNormalizer.alphabet(language).length());
+            workers[i].start();
+        }
+    }
+
+    /**
+        add method copies a record into the current chunk, which is queued for the workers once full. Records
+        never span two chunks, so no character is cut; a record larger than a chunk gets a chunk of its own.
+
+        @param utf8  The UTF-8 encoded record.
+        @param offset  The index of the first byte of the record.
+        @param length  The number of bytes of the record.
+     */
+    public void add(byte[] utf8, int offset, int length) throws IOException, InterruptedException {
+        if (current != null && current.length + length > current.bytes.length)
+            submitCurrent();
+        if (current == null) {
+            checkFailure();
+            current = free.take();
+            if (current.bytes.length < length)
+                current.bytes = new byte[length];
+        }
+
+        System.arraycopy(utf8, offset, current.bytes, current.length, length);
+        current.length += length;
+    }
+
+    /**
+        finish method queues the last chunk, waits for the workers to count every chunk and sums their counts.
+
+        @return  The count of each letter, indexed by the letter ordinal.
+     */
+    public long[] finish() throws IOException, InterruptedException {
+        if (current != null)
+            submitCurrent();
+
+        // One stop chunk for each worker stops them once the queue is drained
+        for (int i = 0; i < workers.length; i++) {
+            queued.put(STOP);
+        }
+        for (Worker worker : workers) {
+            worker.join();
+        }
+        checkFailure();
+
+        long[] letterCounts = new long[workers[0].letterCounts.length];
+        for (Worker worker : workers) {
+            for (int i = 0; i < letterCounts.length; i++) {
+                letterCounts[i] += worker.letterCounts[i];
+            }
+        }
+        return letterCounts;
+    }
+
+    private void submitCurrent() throws IOException, InterruptedException {
+        checkFailure();
+        queued.put(current);
+        current = null;
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null)
+            throw new IOException("Letter counting thread failed", failure);
+    }
+}
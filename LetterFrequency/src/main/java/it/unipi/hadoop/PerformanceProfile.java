@@ -0,0 +1,86 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.MRJobConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Named sets of Hadoop settings for the shuffle, the compression and the memory of the tasks, chosen for each
+// run by the comma separated "profile" configuration value. The profiles are applied to the configuration
+// every job of the run is created from, so all the jobs of a pipeline are tuned the same way
+public enum PerformanceProfile {
+    // Small inputs run all their tasks in the JVM of the application master, which skips the container
+    // allocations. Only jobs with at most one reducer are run this way
+    SMALL("small",
+            MRJobConfig.JOB_UBERTASK_ENABLE, "true",
+            MRJobConfig.JOB_UBERTASK_MAXMAPS, "9",
+            MRJobConfig.JOB_UBERTASK_MAXREDUCES, "1"),
+    // Large inputs compress the map output and get a larger sort buffer, with the memory to hold it, so the
+    // map output is spilled and merged fewer times and the reducers start copying it later
+    LARGE("large",
+            MRJobConfig.MAP_OUTPUT_COMPRESS, "true",
+            MRJobConfig.IO_SORT_MB, "256",
+            MRJobConfig.IO_SORT_FACTOR, "64",
+            MRJobConfig.MAP_SORT_SPILL_PERCENT, "0.9",
+            MRJobConfig.SHUFFLE_PARALLEL_COPIES, "10",
+            MRJobConfig.COMPLETED_MAPS_FOR_REDUCE_SLOWSTART, "0.8",
+            MRJobConfig.MAP_MEMORY_MB, "1536",
+            MRJobConfig.MAP_JAVA_OPTS, "-Xmx1228m",
+            MRJobConfig.REDUCE_MEMORY_MB, "1536",
+            MRJobConfig.REDUCE_JAVA_OPTS, "-Xmx1228m"),
+    // The map output is compressed with a fast codec, both need the native Hadoop library on the nodes
+    SNAPPY("snappy",
+            MRJobConfig.MAP_OUTPUT_COMPRESS, "true",
+            MRJobConfig.MAP_OUTPUT_COMPRESS_CODEC, "org.apache.hadoop.io.compress.SnappyCodec"),
+    LZ4("lz4",
+            MRJobConfig.MAP_OUTPUT_COMPRESS, "true",
+            MRJobConfig.MAP_OUTPUT_COMPRESS_CODEC, "org.apache.hadoop.io.compress.Lz4Codec");
+
+    // Source recorded by GenericOptionsParser for the "-D name=value" options
+    private static final String COMMAND_LINE = "from command line";
+
+    private final String option;
+    private final String[] settings;
+
+    PerformanceProfile(String option, String... settings) {
+        this.option = option;
+        this.settings = settings;
+    }
+
+    /**
+        apply method applies the profiles named by the "profile" configuration value in their order, so a
+        later profile overrides the settings of an earlier one. Settings given with "-D name=value" on the
+        command line are kept.
+
+        @param conf  The configuration object.
+        @return  The profiles applied, empty when no profile is named.
+     */
+    public static List<PerformanceProfile> apply(Configuration conf) {
+        List<PerformanceProfile> profiles = new ArrayList<>();
+        for (String name : conf.getTrimmedStrings("profile")) {
+            PerformanceProfile profile = of(name);
+            for (int i = 0; i < profile.settings.length; i += 2) {
+                String[] sources = conf.getPropertySources(profile.settings[i]);
+                if (sources == null || !Arrays.asList(sources).contains(COMMAND_LINE))
+                    conf.set(profile.settings[i], profile.settings[i + 1], "profile " + profile.option);
+            }
+            profiles.add(profile);
+        }
+        return profiles;
+    }
+
+    private static PerformanceProfile of(String name) {
+        for (PerformanceProfile profile : values()) {
+            if (profile.option.equalsIgnoreCase(name))
+                return profile;
+        }
+        throw new IllegalArgumentException("Unsupported performance profile: " + name);
+    }
+
+    @Override
+    public String toString() {
+        return option;
+    }
+}
@@ -0,0 +1,187 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.ByteWritable;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.VIntWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.PriorityQueue;
+
+public class ReportMerger {
+
+    // Cursor over the lines of a part file, which the reducer wrote sorted by letter or n-gram
+    private static abstract class PartCursor implements Closeable {
+        String letter;
+        long count;
+        double frequency;
+
+        // Moves to the next line of the part file, returns false at the end of the file
+        abstract boolean next() throws IOException;
+    }
+
+    // Cursor over a text part file, with "letter count" or "letter frequency" lines
+    private static class TextPartCursor extends PartCursor {
+        private final BufferedReader reader;
+        private final boolean counts;
+
+        TextPartCursor(Path partFile, boolean counts, Configuration conf) throws IOException {
+            FileSystem fs = partFile.getFileSystem(conf);
+            this.reader = new BufferedReader(new InputStreamReader(fs.open(partFile), StandardCharsets.UTF_8));
+            this.counts = counts;
+        }
+
+        @Override
+        boolean next() throws IOException {
+            String line = reader.readLine();
+            if (line == null)
+                return false;
+
+            int separator = line.indexOf('\t');
+            letter = line.substring(0, separator);
+            if (counts)
+                count = Long.parseLong(line.substring(separator + 1));
+            else
+                frequency = Double.parseDouble(line.substring(separator + 1));
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    // Cursor over a sequence part file, keyed by the letter ordinal or by the packed n-gram
+    private static class SequencePartCursor extends PartCursor {
+        private final SequenceFile.Reader reader;
+        private final String alphabet;
+        private final int n;
+        private final boolean counts;
+        private final Writable key;
+        private final LongWritable countValue = new LongWritable();
+        private final DoubleWritable frequencyValue = new DoubleWritable();
+
+        SequencePartCursor(Path partFile, boolean counts, String alphabet, int n, Configuration conf) throws IOException {
+            this.reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(partFile));
+            this.alphabet = alphabet;
+            this.n = n;
+            this.counts = counts;
+            this.key = (Writable) ReflectionUtils.newInstance(reader.getKeyClass(), conf);
+        }
+
+        @Override
+        boolean next() throws IOException {
+            if (counts) {
+                if (!reader.next(key, countValue))
+                    return false;
+                count = countValue.get();
+            } else {
+                if (!reader.next(key, frequencyValue))
+                    return false;
+                frequency = frequencyValue.get();
+            }
+            if (key instanceof VIntWritable)
+                letter = NGram.decode(((VIntWritable) key).get(), n, alphabet);
+            else
+                letter = String.valueOf(alphabet.charAt(((ByteWritable) key).get()));
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+        merge method performs a k-way merge of sorted part files and writes one "letter frequency" line for
+        each letter, in letter order, or one "n-gram frequency" line for each n-gram. Only one line of each
+        part file is held in memory at a time. Counts of the same letter found in several part files are
+        summed exactly and divided by the total letter count once; frequency files already hold the final
+        value of each letter.
+
+        @param partFiles  The part files to merge, each sorted by letter.
+        @param counts  True if the part files hold letter counts, false if they hold letter frequencies.
+        @param totalLetterCount  The total letter count, used to turn the counts into frequencies.
+        @param binary  True if the part files are sequence files keyed by letter ordinal or packed n-gram.
+        @param writer  The writer receiving the merged lines.
+        @param conf  The configuration object, holding the language of the letters and the n-gram length.
+     */
+    public static void merge(List<Path> partFiles, boolean counts, long totalLetterCount, boolean binary, BufferedWriter writer, Configuration conf) throws IOException {
+        String alphabet = LanguageNormalizer.alphabet(conf.get("language"));
+        int n = conf.getInt("ngram", 1);
+
+        // Letters are single UTF-16 chars and alphabets are sorted by code point, so the string order is the letter
+        // order, and the n-grams of the same length sort like their packed keys
+        PriorityQueue<PartCursor> cursors = new PriorityQueue<>(Math.max(1, partFiles.size()), (a, b) -> a.letter.compareTo(b.letter));
+        try {
+            for (Path partFile : partFiles) {
+                PartCursor cursor = binary ? new SequencePartCursor(partFile, counts, alphabet, n, conf) : new TextPartCursor(partFile, counts, conf);
+                if (cursor.next())
+                    cursors.add(cursor);
+                else
+                    cursor.close();
+            }
+
+            while (!cursors.isEmpty()) {
+                String letter = cursors.peek().letter;
+                long count = 0;
+                double frequency = 0;
+
+                // Take the current line of every part file holding the smallest letter
+                while (!cursors.isEmpty() && cursors.peek().letter.equals(letter)) {
+                    PartCursor cursor = cursors.poll();
+                    count += cursor.count;
+                    frequency += cursor.frequency;
+                    if (cursor.next())
+                        cursors.add(cursor);
+                    else
+                        cursor.close();
+                }
+
+                writer.write(letter + "\t" + (counts ? (double) count / totalLetterCount : frequency));
+                writer.newLine();
+            }
+        } finally {
+            for (PartCursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+        sumCounts method reads the letter count part files of a job and sums the count of each letter.
+
+        @param partFiles  The part files holding the letter counts.
+        @param binary  True if the part files are sequence files keyed by letter ordinal.
+        @param conf  The configuration object, holding the language of the letters.
+        @return  The count of each letter, indexed by the letter ordinal.
+     */
+    public static long[] sumCounts(List<Path> partFiles, boolean binary, Configuration conf) throws IOException {
+        String alphabet = LanguageNormalizer.alphabet(conf.get("language"));
+        long[] letterCounts = new long[alphabet.length()];
+
+        for (Path partFile : partFiles) {
+            try (PartCursor cursor = binary ? new SequencePartCursor(partFile, true, alphabet, 1, conf) : new TextPartCursor(partFile, true, conf)) {
+                while (cursor.next()) {
+                    letterCounts[alphabet.indexOf(cursor.letter)] += cursor.count;
+                }
+            }
+        }
+
+        return letterCounts;
+    }
+}
@@ -0,0 +1,196 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.ChecksumFileSystem;
+import org.apache.hadoop.fs.FileChecksum;
+import org.apache.hadoop.fs.FileContext;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Options;
+import org.apache.hadoop.fs.Path;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Exact letter counts of every input file of earlier runs, kept in the "cache" folder with one file for each
+// language. An entry is reused while its file keeps the same path, length and checksum, so a run only counts
+// the files that are new or changed since the previous one
+public class ResultCache {
+
+    // Letter counts of a file, with the length and checksum the file had when it was counted
+    private static class Entry {
+        long length;
+        String checksum;
+        long[] letterCounts;
+    }
+
+    private final Path cacheFile;
+    private final int alphabetLength;
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    private ResultCache(Path cacheFile, int alphabetLength) {
+        this.cacheFile = cacheFile;
+        this.alphabetLength = alphabetLength;
+    }
+
+    /**
+        load method reads the cache of a language, a cache that does not exist yet is empty. Each line of the
+        cache file holds a path, its length, its checksum and its letter counts, separated by tabs.
+
+        @param folder  The path of the cache folder.
+        @param language  The language of the cached files.
+        @param conf  The configuration object.
+        @return  The cache of the language.
+     */
+    public static ResultCache load(String folder, String language, Configuration conf) throws IOException {
+        Path cacheFile = new Path(folder, language + ".cache");
+        ResultCache cache = new ResultCache(cacheFile, LanguageNormalizer.alphabet(language).length());
+
+        FileSystem fs = cacheFile.getFileSystem(conf);
+        if (!fs.exists(cacheFile))
+            return cache;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(cacheFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t");
+                String[] counts = parts[3].split(",");
+
+                // An entry written for a different alphabet is dropped and counted again
+                if (counts.length != cache.alphabetLength)
+                    continue;
+
+                Entry entry = new Entry();
+                entry.length = Long.parseLong(parts[1]);
+                entry.checksum = parts[2];
+                entry.letterCounts = new long[counts.length];
+                for (int i = 0; i < counts.length; i++) {
+                    entry.letterCounts[i] = Long.parseLong(counts[i]);
+                }
+                cache.entries.put(parts[0], entry);
+            }
+        }
+        return cache;
+    }
+
+    /**
+        checksum method returns the checksum identifying the content of a file. HDFS computes it from the
+        checksums of the blocks without reading the file; file systems without checksums, such as the
+        local one, fall back to the modification time.
+
+        @param file  The status of the file.
+        @param conf  The configuration object.
+        @return  The checksum of the file.
+     */
+    public static String checksum(FileStatus file, Configuration conf) throws IOException {
+        FileChecksum checksum = file.getPath().getFileSystem(conf).getFileChecksum(file.getPath());
+        if (checksum == null)
+            return "mtime:" + file.getModificationTime();
+        return checksum.toString();
+    }
+
+    /**
+        get method returns the cached letter counts of a file, if the file has not changed since it was counted.
+
+        @param file  The status of the file.
+        @param checksum  The current checksum of the file.
+        @return  The letter counts of the file, or null if the file is not cached or has changed.
+     */
+    public long[] get(FileStatus file, String checksum) {
+        Entry entry = entries.get(file.getPath().toString());
+        if (entry == null || entry.length != file.getLen() || !entry.checksum.equals(checksum))
+            return null;
+        return entry.letterCounts;
+    }
+
+    /**
+        put method stores the letter counts of a file, replacing those of an earlier version of the file.
+
+        @param file  The status of the file.
+        @param checksum  The checksum of the file.
+        @param letterCounts  The letter counts of the file, indexed by the letter ordinal.
+     */
+    public void put(FileStatus file, String checksum, long[] letterCounts) {
+        Entry entry = new Entry();
+        entry.length = file.getLen();
+        entry.checksum = checksum;
+        entry.letterCounts = letterCounts;
+        entries.put(file.getPath().toString(), entry);
+    }
+
+    /**
+        retain method drops the entries of the files under the input path that are no longer part of the input.
+        The entries of other inputs sharing the cache folder are kept.
+
+        @param inputFile  The path of the input file or directory.
+        @param files  The status of the input files.
+        @param conf  The configuration object.
+     */
+    public void retain(String inputFile, List<FileStatus> files, Configuration conf) throws IOException {
+        Path root = new Path(inputFile);
+        String rootPath = root.getFileSystem(conf).makeQualified(root).toString();
+        String rootPrefix = rootPath.endsWith("/") ? rootPath : rootPath + "/";
+
+        Set<String> paths = new HashSet<>();
+        for (FileStatus file : files) {
+            paths.add(file.getPath().toString());
+        }
+        entries.keySet().removeIf(path -> (path.equals(rootPath) || path.startsWith(rootPrefix)) && !paths.contains(path));
+    }
+
+    /**
+        save method writes the cache to a temporary file and then renames it over the cache file, so an
+        interrupted run leaves the previous cache intact.
+
+        @param conf  The configuration object.
+     */
+    public void save(Configuration conf) throws IOException {
+        FileSystem fs = cacheFile.getFileSystem(conf);
+        Path temporaryFile = cacheFile.suffix(".tmp");
+
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fs.create(temporaryFile, true), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                StringBuilder line = new StringBuilder(entry.getKey());
+                line.append('\t').append(entry.getValue().length).append('\t').append(entry.getValue().checksum).append('\t');
+                for (int i = 0; i < entry.getValue().letterCounts.length; i++) {
+                    line.append(i == 0 ? "" : ",").append(entry.getValue().letterCounts[i]);
+                }
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+
+        replaceFile(temporaryFile, cacheFile, conf);
+    }
+
+    /**
+        replaceFile method renames a file over another in a single rename, which is atomic on HDFS, so the
+        target file is never missing. The rename of FileContext leaves the checksum files of the local file
+        system behind (HADOOP-16255): the checksum of the target is deleted before the rename, so it never
+        describes other data, and the checksum of the source is moved after it.
+
+        @param source  The path of the new file.
+        @param target  The path of the file to replace.
+        @param conf  The configuration object.
+     */
+    public static void replaceFile(Path source, Path target, Configuration conf) throws IOException {
+        FileSystem fs = target.getFileSystem(conf);
+        ChecksumFileSystem checksumFs = fs instanceof ChecksumFileSystem ? (ChecksumFileSystem) fs : null;
+        if (checksumFs != null)
+            checksumFs.getRawFileSystem().delete(checksumFs.getChecksumFile(target), false);
+
+        FileContext.getFileContext(target.toUri(), conf).rename(source, target, Options.Rename.OVERWRITE);
+
+        if (checksumFs != null && checksumFs.getRawFileSystem().exists(checksumFs.getChecksumFile(source)))
+            checksumFs.getRawFileSystem().rename(checksumFs.getChecksumFile(source), checksumFs.getChecksumFile(target));
+    }
+}
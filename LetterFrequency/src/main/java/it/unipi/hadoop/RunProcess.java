@@ -0,0 +1,901 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+public class RunProcess extends Configured implements Tool {
+
+    // Defaults of the streaming pipeline: how often the input folder is polled, and how much time or new
+    // data triggers a new snapshot
+    private static final long DEFAULT_POLL_INTERVAL = 1000;
+    private static final long DEFAULT_SNAPSHOT_INTERVAL = 10000;
+    private static final long DEFAULT_SNAPSHOT_BYTES = 64L * 1024 * 1024;
+
+    private static final String USAGE = "Usage: RunProcess [<generic options>] "
+            + "(<inputFile> <language|auto> <outputFolder> <finalOutputFile> [<numReducers>] | --input=<path> --language=<language|auto> --outputFolder=<path> --finalOutputFile=<path> [--numReducers=<n>]) "
+            + "[--profile=small|large|snappy|lz4[,...]] [--pipeline=fused|chained|batch|local|stream] [--strategy=none|combiner|inMapper|hybrid] [--outputFormat=text|sequence] [--totalSource=counter|reducer|output] "
+            + "[--localThreshold=<bytes>] [--inputFormat=line|chunk] [--chunkSize=<bytes>] [--combineSplitSize=<bytes>] [--ngram=<n>] [--mapThreads=<n>] [--cache=<folder>] [--pollInterval=<ms>] [--snapshotInterval=<ms>] [--snapshotBytes=<bytes>] [--streamDuration=<ms>] [--sample=<fraction>] [--sampleSeed=<n>] [--sampleError=<halfWidth>] [--metricsFormat=json|csv|none]";
+
+    public static void main(String[] args) throws Exception {
+        // "hadoop jar" passes the main class of the manifest as the first argument, the generic options
+        // such as "-D name=value" must directly follow it to be parsed
+        if (args.length > 0 && args[0].equals(RunProcess.class.getName()))
+            args = Arrays.copyOfRange(args, 1, args.length);
+        System.exit(ToolRunner.run(new Configuration(), new RunProcess(), args));
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+
+        // The configuration already holds the generic options, store the optional "--name=value" flags in it
+        Configuration conf = getConf();
+        args = parseOptions(args, conf);
+
+        // The positional arguments override the named options
+        if (args.length >= 4) {
+            conf.set("input", args[0]);
+            conf.set("language", args[1]);
+            conf.set("outputFolder", args[2]);
+            conf.set("finalOutputFile", args[3]);
+        }
+        if (args.length == 5)
+            conf.set("numReducers", args[4]);
+
+        String inputFile = conf.get("input");
+        String language = conf.get("language");
+        String outputFolder = conf.get("outputFolder");
+        String finalOutputFile = conf.get("finalOutputFile");
+        if ((args.length != 0 && args.length != 4 && args.length != 5) || inputFile == null || language == null || outputFolder == null || finalOutputFile == null) {
+            System.err.println(USAGE);
+            ToolRunner.printGenericCommandUsage(System.err);
+            return 2;
+        }
+
+        int numReducers = conf.getInt("numReducers", 1);
+        String pipeline = conf.get("pipeline", "fused");
+        int ngramLength = NGram.checkLength(conf.getInt("ngram", 1));
+        AggregationStrategy strategy = AggregationStrategy.of(conf);
+
+        // The profiles tune the configuration every job is created from
+        List<PerformanceProfile> profiles = PerformanceProfile.apply(conf);
+
+        // Without a language the language of each record is detected, so a mixed corpus is counted in one pass
+        if (language.equals("auto")) {
+            if (!pipeline.equals("fused") || ngramLength > 1 || conf.get("cache") != null) {
+                System.err.println("Automatic language detection only supports the letters of the fused pipeline");
+                return 2;
+            }
+            pipeline = "mixed";
+        }
+
+        // A sample fraction turns the fused pipeline into a sampled one, which only reads some of the splits
+        if (conf.get("sample") != null) {
+            if (!pipeline.equals("fused") || ngramLength > 1 || conf.get("cache") != null) {
+                System.err.println("Sampling only supports the letters of the fused pipeline, without a result cache");
+                return 2;
+            }
+            float fraction = conf.getFloat("sample", 1);
+            if (fraction <= 0 || fraction > 1) {
+                System.err.println("The sample fraction must be greater than 0 and at most 1: " + conf.get("sample"));
+                return 2;
+            }
+            pipeline = "sampled";
+        }
+
+        // A result cache turns the fused pipeline into an incremental one, which only counts new or changed files
+        if (conf.get("cache") != null) {
+            if (!pipeline.equals("fused") || ngramLength > 1) {
+                System.err.println("The result cache only supports the letters of the fused pipeline");
+                return 2;
+            }
+            pipeline = "incremental";
+        }
+
+        // Inputs below the local threshold are counted in this JVM, which skips the job submission
+        if (pipeline.equals("fused") && ngramLength == 1 && LocalLetterFrequency.isBelowThreshold(inputFile, conf))
+            pipeline = "local";
+
+        // Only the in-mapper letter mappers count over several threads, the other mappers keep one
+        int mapThreads = conf.getInt("mapThreads", 1);
+        if (mapThreads > 1 && (!strategy.aggregatesInMapper() || ngramLength > 1 || pipeline.equals("batch") || pipeline.equals("mixed")))
+            System.out.println("Map threads are only used by the in-mapper letter count and frequency mappers");
+
+        // Only the fused pipeline counts n-grams longer than one letter
+        if (ngramLength > 1 && !pipeline.equals("fused")) {
+            System.err.println("The " + pipeline + " pipeline does not support n-grams, use the fused pipeline");
+            return 2;
+        }
+
+        System.out.println("Input file: " + inputFile);
+        System.out.println("Language: " + language);
+        System.out.println("Output folder: " + outputFolder);
+        System.out.println("Final output file: " + finalOutputFile);
+        System.out.println("Number of reducers: " + numReducers);
+        System.out.println("Pipeline: " + pipeline);
+        System.out.println("Aggregation strategy: " + strategy);
+        System.out.println("Performance profiles: " + (profiles.isEmpty() ? "none" : profiles));
+        System.out.println("N-gram length: " + ngramLength);
+        System.out.println("Map threads: " + mapThreads);
+        // The kernel of this JVM, the task JVMs use the vector kernel too when their java.opts add its module
+        System.out.println("Histogram kernel: " + LetterHistogram.kernel());
+        System.out.println("Output format: " + conf.get("outputFormat", "text"));
+        System.out.println("Total letter count source: " + conf.get("totalSource", "counter"));
+        System.out.println("Input format: " + conf.get("inputFormat", "line") + (conf.getLong("combineSplitSize", 0) > 0 ? " (combined)" : ""));
+        if (pipeline.equals("incremental"))
+            System.out.println("Result cache: " + conf.get("cache"));
+        if (pipeline.equals("sampled"))
+            System.out.println("Sample: " + conf.get("sample") + " of the splits, seed " + conf.getLong("sampleSeed", 0)
+                    + (conf.get("sampleError") != null ? ", target error " + conf.get("sampleError") : ""));
+
+        // Define the folder paths for the intermediate and final output
+        String countFolder = outputFolder + "/count";
+        String frequencyFolder = outputFolder + "/frequency";
+
+        // Collect the timings and counters of the run
+        JobMetrics metrics = new JobMetrics(inputFile, strategy.toString(), pipeline, conf);
+
+        boolean success;
+        switch (pipeline) {
+            case "fused":
+                if (ngramLength > 1)
+                    success = runNGramPipeline(inputFile, frequencyFolder, finalOutputFile, conf, metrics);
+                else
+                    success = runFusedPipeline(inputFile, frequencyFolder, finalOutputFile, conf, metrics);
+                break;
+            case "chained":
+                success = runChainedPipeline(inputFile, countFolder, frequencyFolder, finalOutputFile, conf, metrics);
+                break;
+            case "local":
+                success = runLocalPipeline(inputFile, finalOutputFile, conf, metrics);
+                break;
+            case "incremental":
+                success = runIncrementalPipeline(inputFile, frequencyFolder, finalOutputFile, conf, metrics);
+                break;
+            case "sampled":
+                success = runSampledPipeline(inputFile, frequencyFolder, finalOutputFile, conf, metrics);
+                break;
+            case "mixed":
+                success = runMixedPipeline(inputFile, frequencyFolder, finalOutputFile, conf, metrics);
+                break;
+            case "stream":
+                success = runStreamingPipeline(inputFile, finalOutputFile, conf, metrics);
+                break;
+            case "batch":
+                success = runBatchPipeline(inputFile, language, frequencyFolder, finalOutputFile, conf, metrics);
+                break;
+            default:
+                System.err.println("Unsupported pipeline: " + pipeline);
+                return 1;
+        }
+
+        // Write the metrics next to the final output, inside the final output folder when there is one file for
+        // each dataset or language
+        metrics.write(metricsFile(finalOutputFile, pipeline.equals("batch") || pipeline.equals("mixed") || pipeline.equals("stream")), conf);
+
+        return success ? 0 : 1;
+    }
+
+    /**
+        runFusedPipeline method counts every letter in a single job and reads the total letter count from
+        the job counters, so the input is scanned and shuffled only once.
+
+        @param inputFile  The path of the input file.
+        @param frequencyFolder  The path of the output directory of the Letter Count+Frequency job.
+        @param finalOutputFile  The path of the final output file.
+        @param conf  The configuration object.
+        @param metrics  The timings and counters of the run.
+        @return  True if the job completed successfully.
+     */
+    private static boolean runFusedPipeline(String inputFile, String frequencyFolder, String finalOutputFile, Configuration conf, JobMetrics metrics) throws Exception {
+        // Step 1: Run Letter Count+Frequency Job
+        Job letterFrequencyJob = LetterFrequency.configureFusedJob(inputFile, frequencyFolder, conf);
+        System.out.println("Running Letter Count+Frequency job");
+        if (!metrics.waitForCompletion(letterFrequencyJob, "Letter Count+Frequency")) {
+            System.err.println("Letter Count+Frequency job failed");
+            return false;
+        }
+        System.out.println("Letter Count+Frequency job completed successfully");
+
+        // Step 2: Read total letter count from the counter incremented by the mappers
+        long totalLetterCount = letterFrequencyJob.getCounters().findCounter(LetterCounter.TOTAL_LETTERS).getValue();
+        System.out.println("Total letter count: " + totalLetterCount);
+
+        // Step 3: Create the final output file, dividing each letter count by the total
+        long mergeStart = System.currentTimeMillis();
+        createFinalFile(totalLetterCount, frequencyFolder, finalOutputFile, true, conf);
+        metrics.addPhase("merge", System.currentTimeMillis() - mergeStart);
+
+        return true;
+    }
+
+    /**
+        runNGramPipeline method counts the n-grams of consecutive letters in a single job, like the fused
+        pipeline does with the letters, and writes the frequency of each n-gram to the final output file.
+
+        @param inputFile  The path of the input file.
+        @param frequencyFolder  The path of the output directory of the N-gram Count job.
+        @param finalOutputFile  The path of the final output file.
+        @param conf  The configuration object.
+        @param metrics  The timings and counters of the run.
+        @return  True if the job completed successfully.
+     */
+    private static boolean runNGramPipeline(String inputFile, String frequencyFolder, String finalOutputFile, Configuration conf, JobMetrics metrics) throws Exception {
+        // Step 1: Run N-gram Count Job
+        Job ngramJob = NGramFrequency.configureNGramJob(inputFile, frequencyFolder, conf);
+        System.out.println("Running N-gram Count job");
+        if (!metrics.waitForCompletion(ngramJob, "N-gram Count")) {
+            System.err.println("N-gram Count job failed");
+            return false;
+        }
+        System.out.println("N-gram Count job completed successfully");
+
+        // Step 2: Read total n-gram count from the counter incremented by the mappers
+        long totalNGramCount = ngramJob.getCounters().findCounter(LetterCounter.TOTAL_NGRAMS).getValue();
+        System.out.println("Total n-gram count: " + totalNGramCount);
+        System.out.println("In-mapper aggregation flushes: " + ngramJob.getCounters().findCounter(LetterCounter.AGGREGATION_FLUSHES).getValue());
+
+        // Step 3: Create the final output file, dividing each n-gram count by the total
+        long mergeStart = System.currentTimeMillis();
+        createFinalFile(totalNGramCount, frequencyFolder, finalOutputFile, true, conf);
+        metrics.addPhase("merge", System.currentTimeMillis() - mergeStart);
+
+        return true;
+    }
+
+    /**
+        runLocalPipeline method counts the letters of a small input in this JVM, without submitting any job,
+        and writes the same final output file as the other pipelines.
+
+        @param inputFile  The path of the input file.
+        @param finalOutputFile  The path of the final output file.
+        @param conf  The configuration object.
+        @param metrics  The timings and counters of the run.
+        @return  True once the final output file is written.
+     */
+    private static boolean runLocalPipeline(String inputFile, String finalOutputFile, Configuration conf, JobMetrics metrics) throws Exception {
+        // Step 1: Count the letters with the local engine
+        System.out.println("Running Letter Count+Frequency locally");
+        long countStart = System.currentTimeMillis();
+        long[] letterCounts = LocalLetterFrequency.countLetters(inputFile, conf);
+        metrics.addPhase("localCount", System.currentTimeMillis() - countStart);
+
+        // Step 2: Create the final output file
+        System.out.println("Total letter count: " + totalCount(letterCounts));
+        long writeStart = System.currentTimeMillis();
+        writeFinalFile(letterCounts, finalOutputFile, conf);
+        metrics.addPhase("merge", System.currentTimeMillis() - writeStart);
+
+        return true;
+    }
+
+    /**
+        runIncrementalPipeline method reuses the letter counts of the input files that have not changed since
+        an earlier run, read from the result cache, and only counts the new or changed files: in this JVM when
+        they are below the local threshold, with a batch job otherwise. The cache is then updated and the
+        counts of all the files are summed into the final output file.
+
+        @param inputFile  The path of the input file or directory.
+        @param frequencyFolder  The path of the output directory of the batch job.
+        @param finalOutputFile  The path of the final output file.
+        @param conf  The configuration object.
+        @param metrics  The timings and counters of the run.
+        @return  True if the changed files were counted successfully.
+     */
+    private static boolean runIncrementalPipeline(String inputFile, String frequencyFolder, String finalOutputFile, Configuration conf, JobMetrics metrics) throws Exception {
+        // Step 1: Look up every input file in the result cache
+        long lookupStart = System.currentTimeMillis();
+        ResultCache cache = ResultCache.load(conf.get("cache"), conf.get("language"), conf);
+        List<FileStatus> files = LocalLetterFrequency.listFiles(inputFile, conf);
+        cache.retain(inputFile, files, conf);
+
+        long[] letterCounts = new long[LanguageNormalizer.alphabet(conf.get("language")).length()];
+        List<FileStatus> changedFiles = new ArrayList<>();
+        List<String> checksums = new ArrayList<>();
+        long changedLength = 0;
+        for (FileStatus file : files) {
+            String checksum = ResultCache.checksum(file, conf);
+            long[] cachedCounts = cache.get(file, checksum);
+            if (cachedCounts != null) {
+                addCounts(letterCounts, cachedCounts);
+            } else {
+                changedFiles.add(file);
+                checksums.add(checksum);
+                changedLength += file.getLen();
+            }
+        }
+        metrics.addPhase("cacheLookup", System.currentTimeMillis() - lookupStart);
+        System.out.println("Cached files: " + (files.size() - changedFiles.size()));
+        System.out.println("Changed files: " + changedFiles.size());
+
+        // Step 2: Count the letters of the changed files, no job is submitted when there are none
+        long[][] changedCounts;
+        if (changedFiles.isEmpty() || changedLength < conf.getLong("localThreshold", LocalLetterFrequency.DEFAULT_LOCAL_THRESHOLD)) {
+            System.out.println("Counting the changed files locally");
+            long countStart = System.currentTimeMillis();
+            changedCounts = LocalLetterFrequency.countFiles(changedFiles, conf);
+            metrics.addPhase("localCount", System.currentTimeMillis() - countStart);
+        } else {
+            changedCounts = countChangedFiles(changedFiles, frequencyFolder, conf, metrics);
+            if (changedCounts == null)
+                return false;
+        }
+
+        // Step 3: Store the counts of the changed files in the result cache
+        long updateStart = System.currentTimeMillis();
+        for (int i = 0; i < changedCounts.length; i++) {
+            cache.put(changedFiles.get(i), checksums.get(i), changedCounts[i]);
+            addCounts(letterCounts, changedCounts[i]);
+        }
+        cache.save(conf);
+        metrics.addPhase("cacheUpdate", System.currentTimeMillis() - updateStart);
+
+        // Step 4: Create the final output file
+        System.out.println("Total letter count: " + totalCount(letterCounts));
+        long writeStart = System.currentTimeMillis();
+        writeFinalFile(letterCounts, finalOutputFile, conf);
+        metrics.addPhase("merge", System.currentTimeMillis() - writeStart);
+
+        return true;
+    }
+
+    /**
+        runSampledPipeline method estimates the letter frequencies from a random sample of the input splits, the
+        "sample" fraction of them, with a 95% confidence interval for each frequency. When "sampleError" is set,
+        more splits are sampled while the widest interval is larger than that half-width, each round reading
+        only the splits that follow the previous ones in the shuffled order.
+
+        @param inputFile  The path of the input file or directory.
+        @param frequencyFolder  The path of the folder receiving the output of each sampling round.
+        @param finalOutputFile  The path of the final output file.
+        @param conf  The configuration object.
+        @param metrics  The timings and counters of the run.
+        @return  True if every job completed successfully, false also for an empty input.
+     */
+    private static boolean runSampledPipeline(String inputFile, String frequencyFolder, String finalOutputFile, Configuration conf, JobMetrics metrics) throws Exception {
+        int totalSplits = SampledLetterFrequency.countSplits(inputFile, conf);
+        if (totalSplits == 0) {
+            System.err.println("The input has no splits to sample, it is empty: " + inputFile);
+            return false;
+        }
+        double targetError = conf.getDouble("sampleError", 0);
+        int alphabetLength = LanguageNormalizer.alphabet(conf.get("language")).length();
+
+        // At least two splits are needed to measure the variation between them
+        int sampledSplits = 0;
+        int nextSplits = Math.min(totalSplits, Math.max(2, (int) Math.ceil(conf.getFloat("sample", 1) * totalSplits)));
+        List<long[]> splitCounts = new ArrayList<>();
+        SampledLetterFrequency.Estimate estimate;
+        for (int round = 1; ; round++) {
+            // Step 1: Count the letters of the next splits of the shuffled order
+            String roundFolder = frequencyFolder + "/round" + round;
+            Job sampleJob = SampledLetterFrequency.configureSampleJob(inputFile, roundFolder, sampledSplits, nextSplits, conf);
+            System.out.println("Running Sampled Letter Frequency job on splits " + sampledSplits + " to " + nextSplits + " of " + totalSplits);
+            if (!metrics.waitForCompletion(sampleJob, "Sampled Letter Frequency")) {
+                System.err.println("Sampled Letter Frequency job failed");
+                return false;
+            }
+            System.out.println("Sampled Letter Frequency job completed successfully");
+            SampledLetterFrequency.readSplitCounts(roundFolder, splitCounts, conf);
+            sampledSplits = nextSplits;
+
+            // Step 2: Estimate the frequencies, and stop once the intervals are narrow enough
+            estimate = SampledLetterFrequency.estimate(splitCounts, totalSplits, alphabetLength);
+            System.out.println("Sampled splits: " + sampledSplits + " of " + totalSplits + ", widest 95% interval: +/-" + estimate.maxHalfWidth());
+            if (targetError <= 0 || estimate.maxHalfWidth() <= targetError || sampledSplits >= totalSplits)
+                break;
+            nextSplits = SampledLetterFrequency.requiredSplits(estimate, targetError);
+        }
+
+        // Step 3: Create the final output file with the estimates and their intervals
+        System.out.println("Estimated total letter count: " + estimate.totalLetterCount + " +/- " + estimate.totalHalfWidth);
+        long writeStart = System.currentTimeMillis();
+        writeSampledFile(estimate, finalOutputFile, conf);
+        metrics.addPhase("merge", System.currentTimeMillis() - writeStart);
+
+        return true;
+    }
+
+    /**
+        runStreamingPipeline method keeps counting the letters of the files arriving in the input folder, and
+        publishes a snapshot of the frequencies of each language in the final output folder when enough new
+        data has arrived or when the snapshot interval has passed since the previous one. The snapshots have
+        the format of the final output file of the other pipelines and replace the previous ones atomically.
+        The stream runs until the process is stopped, or for "streamDuration" milliseconds when set.
+
+        @param inputFolder  The path of the folder receiving the input files.
+        @param finalOutputFolder  The path of the folder receiving the snapshot of each language.
+        @param conf  The configuration object.
+        @param metrics  The timings and counters of the run.
+        @return  True when the stream ends.
+     */
+    private static boolean runStreamingPipeline(String inputFolder, String finalOutputFolder, Configuration conf, JobMetrics metrics) throws Exception {
+        long pollInterval = conf.getLong("pollInterval", DEFAULT_POLL_INTERVAL);
+        long snapshotInterval = conf.getLong("snapshotInterval", DEFAULT_SNAPSHOT_INTERVAL);
+        long snapshotBytes = conf.getLong("snapshotBytes", DEFAULT_SNAPSHOT_BYTES);
+        long streamDuration = conf.getLong("streamDuration", 0);
+        StreamingLetterFrequency stream = new StreamingLetterFrequency(inputFolder, conf.get("language"), conf);
+        System.out.println("Watching " + inputFolder + " every " + pollInterval + " ms");
+
+        long streamStart = System.currentTimeMillis();
+        long lastSnapshot = 0;
+        long pendingBytes = 0;
+        int snapshots = 0;
+        while (true) {
+            // Step 1: Count the letters of the data that arrived since the previous poll
+            long pollStart = System.currentTimeMillis();
+            long bytesRead = stream.poll();
+            pendingBytes += bytesRead;
+            long now = System.currentTimeMillis();
+            metrics.addPhase("poll", now - pollStart);
+
+            // Step 2: Publish the snapshots when enough data or time has passed, and once more at the end
+            boolean finished = streamDuration > 0 && now - streamStart >= streamDuration;
+            if (pendingBytes > 0 && (pendingBytes >= snapshotBytes || now - lastSnapshot >= snapshotInterval || finished)) {
+                publishSnapshots(stream.getLetterCounts(), finalOutputFolder, conf);
+                lastSnapshot = System.currentTimeMillis();
+                metrics.addPhase("merge", lastSnapshot - now);
+                snapshots++;
+                System.out.println("Published snapshot " + snapshots + " with " + pendingBytes + " new bytes, " + (lastSnapshot - pollStart) + " ms after the poll");
+                pendingBytes = 0;
+            }
+            if (finished)
+                return true;
+
+            // Keep reading without waiting while data is still arriving
+            if (bytesRead == 0)
+                Thread.sleep(pollInterval);
+        }
+    }
+
+    /**
+        publishSnapshots method writes the frequencies of each language to a temporary file and renames it over
+        the snapshot of the language in a single rename, so readers never see a partial or missing snapshot.
+
+        @param languageCounts  The count of each letter of each language.
+        @param finalOutputFolder  The path of the folder receiving the snapshot of each language.
+        @param conf  The configuration object.
+     */
+    private static void publishSnapshots(Map<String, long[]> languageCounts, String finalOutputFolder, Configuration conf) throws IOException {
+        for (Map.Entry<String, long[]> entry : languageCounts.entrySet()) {
+            Configuration languageConf = new Configuration(conf);
+            languageConf.set("language", entry.getKey());
+
+            Path snapshot = new Path(finalOutputFolder, entry.getKey() + ".txt");
+            Path temporaryFile = new Path(finalOutputFolder, "." + entry.getKey() + ".txt.tmp");
+            writeFinalFile(entry.getValue(), temporaryFile.toString(), languageConf);
+            ResultCache.replaceFile(temporaryFile, snapshot, conf);
+        }
+    }
+
+    /**
+        countChangedFiles method counts the letters of each changed file with the batch job, every file being
+        a dataset in the language of the run, and reads the counts of each file back from its folder.
+
+        @param changedFiles  The status of each changed file.
+        @param frequencyFolder  The path of the output directory of the batch job.
+        @param conf  The configuration object.
+        @param metrics  The timings and counters of the run.
+        @return  The count of each letter of each file, or null if the job failed.
+     */
+    private static long[][] countChangedFiles(List<FileStatus> changedFiles, String frequencyFolder, Configuration conf, JobMetrics metrics) throws Exception {
+        List<String> paths = new ArrayList<>();
+        for (FileStatus file : changedFiles) {
+            paths.add(file.getPath().toString());
+        }
+        Configuration batchConf = new Configuration(conf);
+        String[] datasetNames = BatchFrequency.configureDatasets(paths, Collections.nCopies(paths.size(), conf.get("language")), batchConf);
+
+        Job batchJob = BatchFrequency.configureBatchJob(frequencyFolder, batchConf);
+        System.out.println("Running Letter Frequency Batch job");
+        if (!metrics.waitForCompletion(batchJob, "Letter Frequency Batch")) {
+            System.err.println("Letter Frequency Batch job failed");
+            return null;
+        }
+        System.out.println("Letter Frequency Batch job completed successfully");
+
+        FileSystem fs = FileSystem.get(conf);
+        long[][] changedCounts = new long[datasetNames.length][];
+        for (int i = 0; i < datasetNames.length; i++) {
+            changedCounts[i] = ReportMerger.sumCounts(listPartFiles(frequencyFolder + "/" + datasetNames[i], fs), isBinaryOutput(conf), conf);
+        }
+        return changedCounts;
+    }
+
+    private static long totalCount(long[] letterCounts) {
+        long totalLetterCount = 0;
+        for (long letterCount : letterCounts) {
+            totalLetterCount += letterCount;
+        }
+        return totalLetterCount;
+    }
+
+    private static void addCounts(long[] letterCounts, long[] fileCounts) {
+        for (int i = 0; i < letterCounts.length; i++) {
+            letterCounts[i] += fileCounts[i];
+        }
+    }
+
+    /**
+        runChainedPipeline method runs the Letter Count job followed by the Letter Frequency job, which
+        scans the input a second time. It is kept as a fallback to compare against the fused pipeline.
+
+        @param inputFile  The path of the input file.
+        @param countFolder  The path of the output directory of the Letter Count job.
+        @param frequencyFolder  The path of the output directory of the Letter Frequency job.
+        @param finalOutputFile  The path of the final output file.
+        @param conf  The configuration object.
+        @param metrics  The timings and counters of the run.
+        @return  True if both jobs completed successfully.
+     */
+    private static boolean runChainedPipeline(String inputFile, String countFolder, String frequencyFolder, String finalOutputFile, Configuration conf, JobMetrics metrics) throws Exception {
+        // Step 1: Run Letter Count Job
+        Job letterCountJob = LetterCount.configureCountJob(inputFile, countFolder, conf);
+        System.out.println("Running Letter Count job");
+        if (!metrics.waitForCompletion(letterCountJob, "Letter Count")) {
+            System.err.println("Letter Count job failed");
+            return false;
+        }
+        System.out.println("Letter Count job completed successfully");
+
+        // Step 2: Read total letter count from the mapper or reducer counter, or from the output of Letter Count job
+        long totalLetterCount;
+        if (isTotalFromOutput(conf))
+            totalLetterCount = getTotalLetterCount(countFolder, conf);
+        else if (conf.get("totalSource", "counter").equals("reducer"))
+            totalLetterCount = letterCountJob.getCounters().findCounter(LetterCounter.REDUCED_LETTERS).getValue();
+        else
+            totalLetterCount = letterCountJob.getCounters().findCounter(LetterCounter.TOTAL_LETTERS).getValue();
+        System.out.println("Total letter count: " + totalLetterCount);
+
+        // Step 3: Run Letter Frequency Job and append results to the output file
+        Job letterFrequencyJob = LetterFrequency.configureFrequencyJob(inputFile, totalLetterCount, frequencyFolder, conf);
+        System.out.println("Running Letter Frequency job");
+        if (!metrics.waitForCompletion(letterFrequencyJob, "Letter Frequency")) {
+            System.err.println("Letter Frequency job failed");
+            return false;
+        }
+        System.out.println("Letter Frequency job completed successfully");
+
+        // Step 4: Append the output of Letter Count job to the final output file
+        long mergeStart = System.currentTimeMillis();
+        createFinalFile(totalLetterCount, frequencyFolder, finalOutputFile, false, conf);
+        metrics.addPhase("merge", System.currentTimeMillis() - mergeStart);
+
+        // Step 5: Delete the temporary output directory for the Letter Count job, if it wrote one
+        if (isTotalFromOutput(conf))
+            deleteFileOrDirectory(countFolder, conf);
+
+        return true;
+    }
+
+    /**
+        runBatchPipeline method counts the letters of every dataset of a batch in a single job. The input is
+        a manifest with one "inputFile language" line for each dataset, or a directory whose files are all in
+        the given language. A final output file is written for each dataset inside the final output folder.
+
+        @param input  The path of the manifest or of the input directory.
+        @param language  The language of the files of the input directory.
+        @param frequencyFolder  The path of the output directory of the batch job.
+        @param finalOutputFolder  The path of the folder receiving the final output files.
+        @param conf  The configuration object.
+        @param metrics  The timings and counters of the run.
+        @return  True if the job completed successfully.
+     */
+    private static boolean runBatchPipeline(String input, String language, String frequencyFolder, String finalOutputFolder, Configuration conf, JobMetrics metrics) throws Exception {
+        // Step 1: Read the datasets of the batch
+        String[] datasetNames = BatchFrequency.configureDatasets(input, language, conf);
+        String[] datasetLanguages = conf.getStrings("datasetLanguages");
+        System.out.println("Number of datasets: " + datasetNames.length);
+
+        // Step 2: Run Letter Frequency Batch Job
+        Job batchJob = BatchFrequency.configureBatchJob(frequencyFolder, conf);
+        System.out.println("Running Letter Frequency Batch job");
+        if (!metrics.waitForCompletion(batchJob, "Letter Frequency Batch")) {
+            System.err.println("Letter Frequency Batch job failed");
+            return false;
+        }
+        System.out.println("Letter Frequency Batch job completed successfully");
+
+        // Step 3: Create the final output file of each dataset from the counts of its folder
+        createDatasetFiles(datasetNames, datasetLanguages, false, frequencyFolder, finalOutputFolder, conf, metrics);
+
+        return true;
+    }
+
+    /**
+        runMixedPipeline method counts the letters of a corpus mixing several languages in a single job, which
+        detects the language of each record, and writes a final output file for each language found inside the
+        final output folder.
+
+        @param inputFile  The path of the input file or directory.
+        @param frequencyFolder  The path of the output directory of the Mixed Language Frequency job.
+        @param finalOutputFolder  The path of the folder receiving the final output files.
+        @param conf  The configuration object.
+        @param metrics  The timings and counters of the run.
+        @return  True if the job completed successfully.
+     */
+    private static boolean runMixedPipeline(String inputFile, String frequencyFolder, String finalOutputFolder, Configuration conf, JobMetrics metrics) throws Exception {
+        // Step 1: Run Mixed Language Frequency Job, the languages are its datasets
+        String[] languages = MixedLanguageFrequency.configureLanguages(conf);
+        Job mixedJob = MixedLanguageFrequency.configureMixedJob(inputFile, frequencyFolder, conf);
+        System.out.println("Running Mixed Language Frequency job");
+        if (!metrics.waitForCompletion(mixedJob, "Mixed Language Frequency")) {
+            System.err.println("Mixed Language Frequency job failed");
+            return false;
+        }
+        System.out.println("Mixed Language Frequency job completed successfully");
+
+        // Step 2: Create the final output file of each language found from the counts of its folder
+        createDatasetFiles(languages, languages, true, frequencyFolder, finalOutputFolder, conf, metrics);
+
+        return true;
+    }
+
+    /**
+        createDatasetFiles method creates the final output file of each dataset of a job whose counts are
+        written to one folder for each dataset, summing the counts of each dataset from its part files.
+
+        @param datasetNames  The name of each dataset.
+        @param datasetLanguages  The language of each dataset.
+        @param skipEmpty  True to write no file for the datasets without letters.
+        @param frequencyFolder  The path of the output directory of the job.
+        @param finalOutputFolder  The path of the folder receiving the final output files.
+        @param conf  The configuration object.
+        @param metrics  The timings and counters of the run.
+     */
+    private static void createDatasetFiles(String[] datasetNames, String[] datasetLanguages, boolean skipEmpty, String frequencyFolder, String finalOutputFolder, Configuration conf, JobMetrics metrics) throws IOException {
+        FileSystem fs = FileSystem.get(conf);
+
+        for (int i = 0; i < datasetNames.length; i++) {
+            Configuration datasetConf = new Configuration(conf);
+            datasetConf.set("language", datasetLanguages[i]);
+            long mergeStart = System.currentTimeMillis();
+
+            // The folder of a dataset without letters holds no part file
+            long[] letterCounts = ReportMerger.sumCounts(listPartFiles(frequencyFolder + "/" + datasetNames[i], fs), isBinaryOutput(conf), datasetConf);
+            long totalLetterCount = totalCount(letterCounts);
+            if (skipEmpty && totalLetterCount == 0)
+                continue;
+            System.out.println("Total letter count of " + datasetNames[i] + ": " + totalLetterCount);
+
+            writeFinalFile(letterCounts, finalOutputFolder + "/" + datasetNames[i] + ".txt", datasetConf);
+            metrics.addPhase("merge", System.currentTimeMillis() - mergeStart);
+        }
+    }
+
+    /**
+        parseOptions method stores every "--name=value" argument in the configuration, a bare "--name"
+        is stored as "true". The remaining positional arguments are returned in their original order.
+
+        @param args  The command line arguments.
+        @param conf  The configuration object.
+        @return  The positional arguments.
+     */
+    private static String[] parseOptions(String[] args, Configuration conf) {
+        List<String> positional = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int separator = arg.indexOf('=');
+                if (separator < 0)
+                    conf.setBoolean(arg.substring(2), true);
+                else
+                    conf.set(arg.substring(2, separator), arg.substring(separator + 1));
+            } else {
+                positional.add(arg);
+            }
+        }
+
+        return positional.toArray(new String[0]);
+    }
+
+    /**
+        getTotalLetterCount method reads the total letter count from the output of the Letter Count job.
+
+        @param countFolder  The path of the output directory of the Letter Count job.
+        @param conf  The configuration object.
+        @return  The total letter count.
+     */
+    private static long getTotalLetterCount(String countFolder, Configuration conf) throws IOException {
+        // Take the output of the Letter Count job
+        FileSystem fs = FileSystem.get(conf);
+        Path letterCountFilePath = new Path(countFolder);
+
+        long totalLetterCount = 0;
+
+        // Get a list of all files in the output directory
+        FileStatus[] status = fs.listStatus(letterCountFilePath);
+
+        for (FileStatus fileStatus : status) {
+            String fileName = fileStatus.getPath().getName();
+
+            // Ignore the _SUCCESS file
+            if (!fileName.equals("_SUCCESS") && isBinaryOutput(conf)) {
+                // Binary output is read back as Writables, without parsing any text
+                try (SequenceFile.Reader reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(fileStatus.getPath()))) {
+                    Text key = new Text();
+                    LongWritable count = new LongWritable();
+                    while (reader.next(key, count)) {
+                        totalLetterCount += count.get();
+                    }
+                }
+            } else if (!fileName.equals("_SUCCESS")) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(fileStatus.getPath())))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] parts = line.split("\\s+");
+                        totalLetterCount += Long.parseLong(parts[1]);
+                    }
+                }
+            }
+        }
+
+        return totalLetterCount;
+    }
+
+    /**
+        createFinalFile method merges the sorted part files of a job into the final output file, followed by
+        the total letter count, or the total n-gram count for the N-gram Count job. The part files hold either
+        the letter frequencies, or the letter or n-gram counts that are divided by the total while merging.
+
+        @param totalLetterCount  The total letter count.
+        @param folder  The path of the output directory of the job.
+        @param outputFile  The path of the final output file.
+        @param counts  True if the job wrote letter counts, false if it wrote letter frequencies.
+        @param conf  The configuration object.
+     */
+    private static void createFinalFile(long totalLetterCount, String folder, String outputFile, boolean counts, Configuration conf) throws IOException {
+        FileSystem fs = FileSystem.get(conf);
+
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fs.create(new Path(outputFile), true), StandardCharsets.UTF_8))) {
+            // Write sorted letters and their frequencies
+            ReportMerger.merge(listPartFiles(folder, fs), counts, totalLetterCount, isBinaryOutput(conf), writer, conf);
+            // Write a white line
+            writer.newLine();
+            // Write the total letter count, or the total n-gram count
+            writer.write((conf.getInt("ngram", 1) > 1 ? "Total N-gram Count:\t" : "Total Letter Count:\t") + totalLetterCount + "\n");
+        }
+    }
+
+    /**
+        listPartFiles method returns the part files of a job output directory sorted by name, which is the
+        order of the reducers that wrote them. A missing directory, as for a dataset without letters, has none.
+
+        @param folder  The path of the output directory.
+        @param fs  The file system of the output directory.
+        @return  The sorted paths of the part files.
+     */
+    private static List<Path> listPartFiles(String folder, FileSystem fs) throws IOException {
+        List<Path> partFiles = new ArrayList<>();
+        if (!fs.exists(new Path(folder)))
+            return partFiles;
+
+        // Ignore the _SUCCESS file and the hidden files
+        for (FileStatus fileStatus : fs.listStatus(new Path(folder))) {
+            String fileName = fileStatus.getPath().getName();
+            if (fileStatus.isFile() && !fileName.startsWith("_") && !fileName.startsWith("."))
+                partFiles.add(fileStatus.getPath());
+        }
+        partFiles.sort(Comparator.comparing(Path::getName));
+        return partFiles;
+    }
+
+    /**
+        writeFinalFile method writes the frequency of each letter, sorted by letter, followed by the total letter count.
+
+        @param letterCounts  The count of each letter, indexed by the letter ordinal.
+        @param outputFile  The path of the final output file.
+        @param conf  The configuration object.
+     */
+    private static void writeFinalFile(long[] letterCounts, String outputFile, Configuration conf) throws IOException {
+        FileSystem fs = new Path(outputFile).getFileSystem(conf);
+
+        long totalLetterCount = totalCount(letterCounts);
+
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fs.create(new Path(outputFile), true), StandardCharsets.UTF_8))) {
+            // Write the frequency of each letter found, the alphabet is sorted
+            String alphabet = LanguageNormalizer.alphabet(conf.get("language"));
+            for (int ordinal = 0; ordinal < letterCounts.length; ordinal++) {
+                if (letterCounts[ordinal] > 0) {
+                    writer.write(alphabet.charAt(ordinal) + "\t" + (double) letterCounts[ordinal] / totalLetterCount);
+                    writer.newLine();
+                }
+            }
+            // Write a white line
+            writer.newLine();
+            // Write the total letter count
+            writer.write("Total Letter Count:\t" + totalLetterCount + "\n");
+        }
+    }
+
+    /**
+        writeSampledFile method writes the estimated frequency of each letter found in the sample, sorted by
+        letter and followed by the half-width of its 95% confidence interval, then the estimated total letter
+        count with its own half-width and the size of the sample.
+
+        @param estimate  The estimate of the sample.
+        @param outputFile  The path of the final output file.
+        @param conf  The configuration object.
+     */
+    private static void writeSampledFile(SampledLetterFrequency.Estimate estimate, String outputFile, Configuration conf) throws IOException {
+        FileSystem fs = FileSystem.get(conf);
+
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(fs.create(new Path(outputFile), true), StandardCharsets.UTF_8))) {
+            // Write the frequency of each letter found and its interval, the alphabet is sorted
+            String alphabet = LanguageNormalizer.alphabet(conf.get("language"));
+            for (int ordinal = 0; ordinal < estimate.frequencies.length; ordinal++) {
+                if (estimate.sampledCounts[ordinal] > 0) {
+                    writer.write(alphabet.charAt(ordinal) + "\t" + estimate.frequencies[ordinal] + "\t" + estimate.halfWidths[ordinal]);
+                    writer.newLine();
+                }
+            }
+            // Write a white line
+            writer.newLine();
+            // Write the estimated total letter count and its interval, then the sample it comes from
+            writer.write("Total Letter Count:\t" + estimate.totalLetterCount + "\t" + estimate.totalHalfWidth + "\n");
+            writer.write("Sampled Letter Count:\t" + estimate.sampledLetterCount + "\n");
+            writer.write("Sampled Splits:\t" + estimate.sampledSplits + "/" + estimate.totalSplits + "\n");
+            writer.write("Confidence Level:\t0.95\n");
+        }
+    }
+
+    /**
+        metricsFile method returns the path of the metrics file of a run, without its extension: the final
+        output file with ".metrics" in place of its extension, or "metrics" inside the final output folder.
+
+        @param finalOutput  The path of the final output file or folder.
+        @param folder  True if the final output is a folder.
+        @return  The path of the metrics file, without its extension.
+     */
+    private static String metricsFile(String finalOutput, boolean folder) {
+        if (folder)
+            return finalOutput + "/metrics";
+
+        int extension = finalOutput.lastIndexOf('.');
+        if (extension > finalOutput.lastIndexOf('/'))
+            finalOutput = finalOutput.substring(0, extension);
+        return finalOutput + ".metrics";
+    }
+
+    private static boolean isBinaryOutput(Configuration conf) {
+        return conf.get("outputFormat", "text").equals("sequence");
+    }
+
+    private static boolean isTotalFromOutput(Configuration conf) {
+        return conf.get("totalSource", "counter").equals("output");
+    }
+
+    /**
+        deleteFileOrDirectory method deletes the specified file or directory if it exists
+
+        @param path  The path of the file or directory to delete.
+        @param conf  The configuration object.
+     */
+    private static void deleteFileOrDirectory(String path, Configuration conf) throws IOException {
+        FileSystem fs = FileSystem.get(conf);
+        Path targetPath = new Path(path);
+
+        if (fs.exists(targetPath)) {
+            fs.delete(targetPath, true);
+        }
+    }
+}
+
@@ -0,0 +1,321 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.MRJobConfig;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+// Approximate letter frequencies read from a random sample of the input splits. The splits are shuffled with a
+// seed, so a run with the same input and seed reads the same splits, and the first ones of the shuffled order
+// are counted by a map-only job writing the letter counts of each split. The splits are the sampling units: the
+// frequencies are ratio estimates over the sampled splits, with confidence intervals from the variation between
+// them, and the total letter count is the mean of the splits times their number
+public class SampledLetterFrequency {
+
+    // Normal quantile of the two-sided 95% confidence intervals
+    public static final double Z_95 = 1.96;
+
+    // Input format returning a slice of the shuffled splits of the input format chosen by "inputFormat"
+    public static class SampleInputFormat extends InputFormat<LongWritable, Text> {
+
+        @Override
+        public List<InputSplit> getSplits(JobContext context) throws IOException, InterruptedException {
+            Configuration conf = context.getConfiguration();
+            List<InputSplit> splits = shuffledSplits(context);
+            int from = Math.min(conf.getInt("sampleFrom", 0), splits.size());
+            int to = Math.min(conf.getInt("sampleTo", splits.size()), splits.size());
+            return new ArrayList<>(splits.subList(from, Math.max(from, to)));
+        }
+
+        @Override
+        public RecordReader<LongWritable, Text> createRecordReader(InputSplit split, TaskAttemptContext context) throws IOException, InterruptedException {
+            return delegate(context.getConfiguration()).createRecordReader(split, context);
+        }
+    }
+
+    // Mapper: counts the letters of its split in memory and writes them as a single line, in cleanup, even when
+    // the split has no letters since an empty split is part of the sample too
+    public static class SampleMapper extends Mapper<Object, Text, NullWritable, Text> {
+        private long[] letterCounts;
+        private LetterHistogram histogram;
+        private Text line = new Text();
+
+        @Override
+        protected void setup(Context context) {
+            String language = context.getConfiguration().get("language");
+            letterCounts = new long[LanguageNormalizer.alphabet(language).length()];
+            histogram = new LetterHistogram(LanguageNormalizer.letterTable(language), letterCounts);
+        }
+
+        @Override
+        public void map(Object key, Text value, Context context) {
+            histogram.add(value.getBytes(), 0, value.getLength());
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            histogram.flush();
+            StringBuilder counts = new StringBuilder();
+            long letterCount = 0;
+            for (int ordinal = 0; ordinal < letterCounts.length; ordinal++) {
+                counts.append(ordinal == 0 ? "" : ",").append(letterCounts[ordinal]);
+                letterCount += letterCounts[ordinal];
+            }
+            context.getCounter(LetterCounter.TOTAL_LETTERS).increment(letterCount);
+
+            line.set(counts.toString());
+            context.write(NullWritable.get(), line);
+        }
+    }
+
+    // Estimated frequencies of a sample, with the half-width of their confidence intervals
+    public static class Estimate {
+        public final long[] sampledCounts;
+        public final double[] frequencies;
+        public final double[] halfWidths;
+        public final long sampledLetterCount;
+        public final long totalLetterCount;
+        public final long totalHalfWidth;
+        public final int sampledSplits;
+        public final int totalSplits;
+
+        private Estimate(long[] sampledCounts, double[] frequencies, double[] halfWidths, long sampledLetterCount,
+                         long totalLetterCount, long totalHalfWidth, int sampledSplits, int totalSplits) {
+            this.sampledCounts = sampledCounts;
+            this.frequencies = frequencies;
+            this.halfWidths = halfWidths;
+            this.sampledLetterCount = sampledLetterCount;
+            this.totalLetterCount = totalLetterCount;
+            this.totalHalfWidth = totalHalfWidth;
+            this.sampledSplits = sampledSplits;
+            this.totalSplits = totalSplits;
+        }
+
+        /**
+            maxHalfWidth method returns the half-width of the widest confidence interval of a letter frequency.
+
+            @return  The largest half-width, infinite when the sample is too small to estimate it.
+         */
+        public double maxHalfWidth() {
+            double max = 0;
+            for (double halfWidth : halfWidths) {
+                max = Math.max(max, halfWidth);
+            }
+            return max;
+        }
+    }
+
+    /**
+        countSplits method returns the number of splits of the input, those the sample is drawn from.
+
+        @param inputFile  The path of the input file or directory.
+        @param conf  The configuration object.
+        @return  The number of splits.
+     */
+    public static int countSplits(String inputFile, Configuration conf) throws IOException, InterruptedException {
+        Job job = Job.getInstance(conf);
+        FileInputFormat.addInputPath(job, new Path(inputFile));
+        configureSampleInputFormat(job, conf);
+        return shuffledSplits(job).size();
+    }
+
+    public static Job configureSampleJob(String inputFile, String outputFolder, int from, int to, Configuration conf) throws IOException {
+        System.out.println("Configuring sampled letter frequency job");
+
+        Job sampleJob = Job.getInstance(conf, "Sampled Letter Frequency");
+
+        // Map-only job, every map task writes the letter counts of its split
+        sampleJob.setJarByClass(SampledLetterFrequency.class);
+        sampleJob.setMapperClass(SampleMapper.class);
+        sampleJob.setNumReduceTasks(0);
+        sampleJob.setOutputKeyClass(NullWritable.class);
+        sampleJob.setOutputValueClass(Text.class);
+
+        // Read the splits from "from" to "to" of the shuffled splits of the chosen input format
+        FileInputFormat.addInputPath(sampleJob, new Path(inputFile));
+        configureSampleInputFormat(sampleJob, conf);
+        sampleJob.getConfiguration().setInt("sampleFrom", from);
+        sampleJob.getConfiguration().setInt("sampleTo", to);
+
+        FileOutputFormat.setOutputPath(sampleJob, new Path(outputFolder));
+        sampleJob.setOutputFormatClass(TextOutputFormat.class);
+
+        System.out.println("Configured sampled letter frequency job");
+        return sampleJob;
+    }
+
+    /**
+        readSplitCounts method reads the letter counts of each sampled split from the output of a sample job.
+
+        @param folder  The path of the output directory of the job.
+        @param splitCounts  The list receiving the count of each letter of each split.
+        @param conf  The configuration object.
+     */
+    public static void readSplitCounts(String folder, List<long[]> splitCounts, Configuration conf) throws IOException {
+        FileSystem fs = FileSystem.get(conf);
+
+        // Ignore the _SUCCESS file and the hidden files
+        for (FileStatus fileStatus : fs.listStatus(new Path(folder))) {
+            String fileName = fileStatus.getPath().getName();
+            if (!fileStatus.isFile() || fileName.startsWith("_") || fileName.startsWith("."))
+                continue;
+
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(fileStatus.getPath()), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] counts = line.trim().split(",");
+                    long[] letterCounts = new long[counts.length];
+                    for (int i = 0; i < counts.length; i++) {
+                        letterCounts[i] = Long.parseLong(counts[i]);
+                    }
+                    splitCounts.add(letterCounts);
+                }
+            }
+        }
+    }
+
+    /**
+        estimate method estimates the letter frequencies of the whole input from the letter counts of the
+        sampled splits. Each frequency is the ratio of the sampled letter counts, with the variance of a
+        ratio estimator over a cluster sample drawn without replacement; the finite population correction
+        makes the intervals shrink to zero once every split is sampled.
+
+        @param splitCounts  The count of each letter of each sampled split.
+        @param totalSplits  The number of splits of the input.
+        @param alphabetLength  The number of letters of the alphabet.
+        @return  The estimated frequencies with their 95% confidence intervals.
+     */
+    public static Estimate estimate(List<long[]> splitCounts, int totalSplits, int alphabetLength) {
+        int n = splitCounts.size();
+        long[] sampledCounts = new long[alphabetLength];
+        long[] splitTotals = new long[n];
+        long sampledLetterCount = 0;
+        for (int i = 0; i < n; i++) {
+            for (int ordinal = 0; ordinal < alphabetLength; ordinal++) {
+                sampledCounts[ordinal] += splitCounts.get(i)[ordinal];
+                splitTotals[i] += splitCounts.get(i)[ordinal];
+            }
+            sampledLetterCount += splitTotals[i];
+        }
+
+        // With a single split the variation between splits is unknown, unless it is the whole input
+        double meanLetters = (double) sampledLetterCount / n;
+        double correction = 1 - (double) n / totalSplits;
+        boolean unknownVariance = n < 2 && correction > 0;
+
+        double[] frequencies = new double[alphabetLength];
+        double[] halfWidths = new double[alphabetLength];
+        for (int ordinal = 0; ordinal < alphabetLength; ordinal++) {
+            frequencies[ordinal] = (sampledLetterCount == 0) ? 0 : (double) sampledCounts[ordinal] / sampledLetterCount;
+            if (unknownVariance) {
+                halfWidths[ordinal] = Double.POSITIVE_INFINITY;
+                continue;
+            }
+
+            // Variance of the residuals of each split around the estimated frequency
+            double residuals = 0;
+            for (int i = 0; i < n; i++) {
+                double residual = splitCounts.get(i)[ordinal] - frequencies[ordinal] * splitTotals[i];
+                residuals += residual * residual;
+            }
+            double variance = (correction <= 0 || meanLetters == 0) ? 0 : correction * residuals / (n - 1) / (n * meanLetters * meanLetters);
+            halfWidths[ordinal] = Z_95 * Math.sqrt(variance);
+        }
+
+        // The total letter count is the mean letter count of a split times the number of splits
+        double deviations = 0;
+        for (int i = 0; i < n; i++) {
+            deviations += (splitTotals[i] - meanLetters) * (splitTotals[i] - meanLetters);
+        }
+        long totalLetterCount = Math.round(meanLetters * totalSplits);
+        long totalHalfWidth = unknownVariance ? Long.MAX_VALUE
+                : (correction <= 0) ? 0 : Math.round(Z_95 * totalSplits * Math.sqrt(correction * deviations / (n - 1) / n));
+
+        return new Estimate(sampledCounts, frequencies, halfWidths, sampledLetterCount, totalLetterCount, totalHalfWidth, n, totalSplits);
+    }
+
+    /**
+        requiredSplits method returns the number of splits expected to bring the widest confidence interval of
+        a sample down to the target half-width, the variance shrinking with 1/n - 1/N.
+
+        @param estimate  The estimate of the current sample.
+        @param targetHalfWidth  The target half-width of the confidence intervals.
+        @return  The number of splits to sample, more than the current ones and at most all of them.
+     */
+    public static int requiredSplits(Estimate estimate, double targetHalfWidth) {
+        int n = estimate.sampledSplits;
+        int totalSplits = estimate.totalSplits;
+        double halfWidth = estimate.maxHalfWidth();
+        if (Double.isInfinite(halfWidth))
+            return Math.min(totalSplits, 2 * Math.max(n, 1));
+
+        double ratio = targetHalfWidth / halfWidth;
+        double inverse = 1.0 / totalSplits + (1.0 / n - 1.0 / totalSplits) * ratio * ratio;
+        int required = (int) Math.ceil(1 / inverse);
+        return Math.min(totalSplits, Math.max(n + 1, required));
+    }
+
+    /**
+        configureSampleInputFormat method sets SampleInputFormat as the input format of a job, reading the
+        splits of the input format "inputFormat" chooses.
+
+        @param job  The job to configure.
+        @param conf  The configuration object.
+     */
+    private static void configureSampleInputFormat(Job job, Configuration conf) {
+        ChunkInputFormat.configureInputFormat(job, conf);
+        Class<?> inputFormat = job.getConfiguration().getClass(MRJobConfig.INPUT_FORMAT_CLASS_ATTR, null, InputFormat.class);
+        job.getConfiguration().setClass("sampleInputFormat", inputFormat, InputFormat.class);
+        job.setInputFormatClass(SampleInputFormat.class);
+    }
+
+    /**
+        shuffledSplits method returns the splits of the input format chosen by "sampleInputFormat", sorted and then
+        shuffled with the "sampleSeed" seed, so that the same input and seed always give the same order.
+
+        @param context  The context of the job.
+        @return  The shuffled splits.
+     */
+    private static List<InputSplit> shuffledSplits(JobContext context) throws IOException, InterruptedException {
+        Configuration conf = context.getConfiguration();
+        List<InputSplit> splits = new ArrayList<>(delegate(conf).getSplits(context));
+
+        // The file system may list the files in any order, the description of a split holds its paths and offsets
+        splits.sort(Comparator.comparing(Object::toString));
+        Collections.shuffle(splits, new Random(conf.getLong("sampleSeed", 0)));
+        return splits;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static InputFormat<LongWritable, Text> delegate(Configuration conf) {
+        Class<?> inputFormat = conf.getClass("sampleInputFormat", null, InputFormat.class);
+        if (inputFormat == null)
+            throw new IllegalStateException("The input format of the sample is not set");
+        return (InputFormat<LongWritable, Text>) ReflectionUtils.newInstance(inputFormat, conf);
+    }
+}
@@ -0,0 +1,184 @@
+package it.unipi.hadoop;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Running letter counts of the files arriving in a directory, local or on HDFS. Every poll reads the new files
+// and the bytes appended to the files already read, so the counts are updated with the new data only. The files
+// directly in the directory are in the language of the run, the files of a subdirectory named after a language
+// code are in that language
+public class StreamingLetterFrequency {
+
+    // Size of the buffer the new bytes of a file are read into
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    // Suffix of the files "hdfs dfs -put" is still writing, they are renamed once complete
+    private static final String COPYING_SUFFIX = "._COPYING_";
+
+    // Letter counts of a file, with the number of bytes already read from it and the histogram counting them
+    private static class FileState {
+        final String language;
+        final long[] letterCounts;
+        final LetterHistogram histogram;
+        long offset;
+
+        FileState(String language) {
+            this.language = language;
+            this.letterCounts = new long[LanguageNormalizer.alphabet(language).length()];
+            this.histogram = new LetterHistogram(LanguageNormalizer.letterTable(language), letterCounts);
+        }
+    }
+
+    private final FileSystem fs;
+    private final Path inputFolder;
+    private final String language;
+    private final Map<String, FileState> files = new HashMap<>();
+    private final Set<String> languages = new TreeSet<>();
+    private final byte[] buffer = new byte[READ_BUFFER_SIZE];
+
+    public StreamingLetterFrequency(String inputFolder, String language, Configuration conf) throws IOException {
+        this.inputFolder = new Path(inputFolder);
+        this.fs = this.inputFolder.getFileSystem(conf);
+        this.language = language;
+        LanguageNormalizer.alphabet(language);
+    }
+
+    /**
+        poll method reads the data that arrived in the input folder since the previous poll. A file shorter
+        than the bytes already read from it has been rewritten, so its counts are dropped and it is read again.
+        The counts of the files deleted from the folder are dropped as well.
+
+        @return  The number of bytes read, plus the bytes of the deleted files.
+     */
+    public long poll() throws IOException {
+        long bytesRead = 0;
+        Set<String> seen = new HashSet<>();
+        for (FileStatus fileStatus : fs.listStatus(inputFolder)) {
+            String name = fileStatus.getPath().getName();
+            if (name.startsWith("_") || name.startsWith(".") || name.endsWith(COPYING_SUFFIX))
+                continue;
+
+            if (fileStatus.isFile()) {
+                seen.add(fileStatus.getPath().toString());
+                bytesRead += readNewBytes(fileStatus, language);
+            } else if (isLanguage(name)) {
+                for (FileStatus languageFile : fs.listStatus(fileStatus.getPath())) {
+                    String fileName = languageFile.getPath().getName();
+                    if (languageFile.isFile() && !fileName.startsWith("_") && !fileName.startsWith(".") && !fileName.endsWith(COPYING_SUFFIX)) {
+                        seen.add(languageFile.getPath().toString());
+                        bytesRead += readNewBytes(languageFile, name.toLowerCase());
+                    }
+                }
+            }
+        }
+
+        // Drop the files no longer in the folder, their bytes count as changed data for the next snapshot
+        Iterator<Map.Entry<String, FileState>> states = files.entrySet().iterator();
+        while (states.hasNext()) {
+            Map.Entry<String, FileState> state = states.next();
+            if (!seen.contains(state.getKey())) {
+                bytesRead += state.getValue().offset;
+                states.remove();
+            }
+        }
+        return bytesRead;
+    }
+
+    /**
+        getLetterCounts method sums the letter counts of the files of each language. A language whose files
+        have all been deleted has no letters left.
+
+        @return  The count of each letter of each language, indexed by the letter ordinal and sorted by language.
+     */
+    public Map<String, long[]> getLetterCounts() {
+        Map<String, long[]> languageCounts = new TreeMap<>();
+        for (String fileLanguage : languages) {
+            languageCounts.put(fileLanguage, new long[LanguageNormalizer.alphabet(fileLanguage).length()]);
+        }
+        for (FileState file : files.values()) {
+            long[] letterCounts = languageCounts.get(file.language);
+            for (int i = 0; i < letterCounts.length; i++) {
+                letterCounts[i] += file.letterCounts[i];
+            }
+        }
+        return languageCounts;
+    }
+
+    private long readNewBytes(FileStatus fileStatus, String fileLanguage) throws IOException {
+        String path = fileStatus.getPath().toString();
+        FileState file = files.get(path);
+        if (file == null || fileStatus.getLen() < file.offset) {
+            file = new FileState(fileLanguage);
+            files.put(path, file);
+            languages.add(fileLanguage);
+        }
+        if (fileStatus.getLen() == file.offset)
+            return 0;
+
+        long start = file.offset;
+        try (FSDataInputStream in = fs.open(fileStatus.getPath())) {
+            in.seek(file.offset);
+            long remaining = fileStatus.getLen() - file.offset;
+            int carried = 0;
+            while (remaining > 0) {
+                int read = in.read(buffer, carried, (int) Math.min(buffer.length - carried, remaining));
+                if (read < 0)
+                    break;
+                remaining -= read;
+
+                // A character cut by the end of the buffer is carried over to the next read, or left for the next
+                // poll when the writer has not appended its last bytes yet
+                int available = carried + read;
+                int complete = completeLength(buffer, available);
+                file.histogram.count(buffer, 0, complete);
+                file.offset += complete;
+                carried = available - complete;
+                System.arraycopy(buffer, complete, buffer, 0, carried);
+            }
+        }
+        return file.offset - start;
+    }
+
+    /**
+        completeLength method returns the length of the longest prefix of UTF-8 bytes that ends on a character
+        boundary, leaving out the first bytes of a multi-byte sequence cut by the end of the bytes.
+
+        @param utf8  The UTF-8 encoded text.
+        @param length  The number of bytes.
+        @return  The length of the prefix.
+     */
+    private static int completeLength(byte[] utf8, int length) {
+        // Step back over at most three continuation bytes to the first byte of the last character
+        int start = length;
+        while (start > 0 && length - start < 3 && (utf8[start - 1] & 0xC0) == 0x80) {
+            start--;
+        }
+        if (start == 0)
+            return length;
+
+        int b = utf8[start - 1] & 0xFF;
+        int sequenceLength = b < 0xC0 ? 1 : b < 0xE0 ? 2 : b < 0xF0 ? 3 : 4;
+        return (length - (start - 1) < sequenceLength) ? start - 1 : length;
+    }
+
+    private static boolean isLanguage(String name) {
+        try {
+            LanguageNormalizer.alphabet(name);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
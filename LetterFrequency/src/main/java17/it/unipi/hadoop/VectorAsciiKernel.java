@@ -0,0 +1,47 @@
+package it.unipi.hadoop;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// ASCII kernel of LetterHistogram on the Vector API of JDK 17 and later. Each step loads the widest vector the
+// CPU offers, 16 to 64 bytes, and checks all of its bytes for a non ASCII byte with a single comparison before
+// counting them into the byte tables. The vector holding a non ASCII byte and the bytes left at the end are
+// counted by the scalar kernel. Only loaded by JVMs started with "--add-modules jdk.incubator.vector"
+public class VectorAsciiKernel implements LetterHistogram.AsciiKernel {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    private final LetterHistogram.AsciiKernel scalar = new LetterHistogram.ScalarKernel();
+
+    @Override
+    public int count(byte[] utf8, int offset, int end, int[][] byteCounts) {
+        int[] counts0 = byteCounts[0];
+        int[] counts1 = byteCounts[1];
+        int[] counts2 = byteCounts[2];
+        int[] counts3 = byteCounts[3];
+
+        int step = SPECIES.length();
+        int i = offset;
+        while (end - i >= step) {
+            ByteVector bytes = ByteVector.fromArray(SPECIES, utf8, i);
+            if (bytes.compare(VectorOperators.LT, (byte) 0).anyTrue())
+                break;
+
+            // The whole vector is ASCII, every byte is a valid table index
+            for (int j = i; j < i + step; j += 4) {
+                counts0[utf8[j]]++;
+                counts1[utf8[j + 1]]++;
+                counts2[utf8[j + 2]]++;
+                counts3[utf8[j + 3]]++;
+            }
+            i += step;
+        }
+        return scalar.count(utf8, i, end, byteCounts);
+    }
+
+    @Override
+    public String toString() {
+        return "vector (" + SPECIES.length() + " bytes)";
+    }
+}
@@ -0,0 +1,108 @@
+package it.unipi.hadoop.benchmark;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.RawComparator;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Map side cost of the letter frequency job with each aggregation strategy: the map output is serialized
+// and sorted as the map output buffer does, then the combiner runs on it when the strategy has one. The
+// strategies are the values of the "strategy" option of the job. The spill to disk is left out, the "records"
+// counter gives the number of map output records
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AggregationBenchmark {
+
+    @Param({"none", "combiner", "inMapper", "hybrid"})
+    public String strategy;
+
+    @Param({"en", "it", "trk"})
+    public String language;
+
+    @Param({"small", "medium"})
+    public String corpus;
+
+    private List<Text> lines;
+    private double megabytes;
+    private Configuration conf;
+    private Class<?> mapperClass;
+    private Class<?> combinerClass;
+    private RawComparator<?> comparator;
+    private SortingCollector collector;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Corpus dataset = Corpus.load(corpus, language);
+        lines = dataset.getLines();
+        megabytes = dataset.getMegabytes();
+        conf = MapTaskHarness.configuration(language);
+
+        switch (strategy) {
+            case "none":
+                mapperClass = MapperBenchmark.mapperClass("LetterFrequency/MapperFrequency");
+                break;
+            case "combiner":
+                mapperClass = MapperBenchmark.mapperClass("LetterFrequency/MapperFrequency");
+                combinerClass = ModuleLoader.loadClass("it.unipi.hadoop.LetterFrequency$CombinerFrequency");
+                break;
+            case "inMapper":
+                mapperClass = MapperBenchmark.mapperClass("LetterFrequency/InMapperFrequency");
+                break;
+            case "hybrid":
+                mapperClass = MapperBenchmark.mapperClass("LetterFrequency/InMapperFrequency");
+                combinerClass = ModuleLoader.loadClass("it.unipi.hadoop.LetterFrequency$CombinerFrequency");
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported strategy: " + strategy);
+        }
+
+        // The letter frequency job keys the map output by the letter as Text
+        comparator = WritableComparator.get(Text.class);
+        collector = new SortingCollector(comparator);
+    }
+
+    @Benchmark
+    @SuppressWarnings("rawtypes")
+    public void aggregate(ThroughputCounters counters, Blackhole blackhole) throws Exception {
+        MapTaskHarness.BenchmarkReporter reporter = new MapTaskHarness.BenchmarkReporter();
+        collector.reset();
+        MapTaskHarness.runMapper((Mapper) mapperClass.newInstance(), conf, lines, collector, reporter);
+
+        RawKeyValueIterator sorted = collector.sort();
+        if (combinerClass != null) {
+            BlackholeWriter output = new BlackholeWriter(blackhole);
+            MapTaskHarness.runCombiner((Reducer) combinerClass.newInstance(), conf, sorted, comparator, Text.class, LongWritable.class, output, reporter);
+        } else {
+            while (sorted.next()) {
+                blackhole.consume(sorted.getKey());
+            }
+        }
+
+        counters.megabytes += megabytes;
+        counters.records += collector.getRecords();
+    }
+}
@@ -0,0 +1,30 @@
+package it.unipi.hadoop.benchmark;
+
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Record writer handing the records to a blackhole, so the benchmarks measure the producer of the records only
+public class BlackholeWriter extends RecordWriter<Object, Object> {
+    private final Blackhole blackhole;
+    private long records;
+
+    public BlackholeWriter(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    @Override
+    public void write(Object key, Object value) {
+        blackhole.consume(key);
+        blackhole.consume(value);
+        records++;
+    }
+
+    @Override
+    public void close(TaskAttemptContext context) {
+    }
+}
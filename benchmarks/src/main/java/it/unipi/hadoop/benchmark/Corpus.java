@@ -0,0 +1,106 @@
+package it.unipi.hadoop.benchmark;
+
+import org.apache.hadoop.io.Text;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+// Dataset of the repository held in memory, split in lines the way TextInputFormat splits it
+public class Corpus {
+    private final byte[] bytes;
+    private final List<Text> lines;
+
+    private Corpus(byte[] bytes, List<Text> lines) {
+        this.bytes = bytes;
+        this.lines = lines;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public List<Text> getLines() {
+        return lines;
+    }
+
+    public double getMegabytes() {
+        return bytes.length / (1024.0 * 1024.0);
+    }
+
+    /**
+        load method reads a dataset of the repository. The datasets folder is read from the "datasets"
+        system property, by default it is looked up from the working directory.
+
+        @param size  The size of the dataset (small, medium).
+        @param language  The language code (en, it, trk).
+        @return  The dataset.
+     */
+    public static Corpus load(String size, String language) throws IOException {
+        byte[] bytes = Files.readAllBytes(datasetFile(size, language).toPath());
+
+        // Lines end with \n, \r or \r\n and the terminators are not part of the values
+        List<Text> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n' || bytes[i] == '\r') {
+                lines.add(line(bytes, start, i));
+                if (bytes[i] == '\r' && i + 1 < bytes.length && bytes[i + 1] == '\n')
+                    i++;
+                start = i + 1;
+            }
+        }
+        if (start < bytes.length)
+            lines.add(line(bytes, start, bytes.length));
+
+        return new Corpus(bytes, lines);
+    }
+
+    private static Text line(byte[] bytes, int start, int end) {
+        Text line = new Text();
+        line.set(bytes, start, end - start);
+        return line;
+    }
+
+    private static File datasetFile(String size, String language) throws FileNotFoundException {
+        String prefix;
+        switch (size) {
+            case "small":
+                prefix = "Seagul";
+                break;
+            case "medium":
+                prefix = "LordOfTheRings";
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported dataset size: " + size);
+        }
+
+        String suffix;
+        switch (language) {
+            case "en":
+                suffix = "English";
+                break;
+            case "it":
+                suffix = "Italian";
+                break;
+            case "trk":
+                suffix = "Turkish";
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported language: " + language);
+        }
+
+        String fileName = size + "/" + prefix + "_" + suffix + ".txt";
+        File folder = new File(System.getProperty("datasets", "datasets"));
+        if (System.getProperty("datasets") == null && !folder.isDirectory())
+            folder = new File("../datasets");
+
+        File file = new File(folder, fileName);
+        if (!file.isFile())
+            throw new FileNotFoundException("Dataset not found: " + file.getAbsolutePath());
+        return file;
+    }
+}
@@ -0,0 +1,110 @@
+package it.unipi.hadoop.benchmark;
+
+import org.apache.hadoop.io.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Throughput of the letter counting kernels on a whole dataset: the character loop of LanguageNormalizer line by
+// line, against LetterHistogram line by line as the in-mapper mappers call it and on the raw bytes of the file
+// in one call. The "default" kernel is the one LetterHistogram picks for the JVM, the vector kernel when the
+// JVM is started with "-jvmArgsAppend --add-modules=jdk.incubator.vector" on JDK 17 and later
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class HistogramBenchmark {
+
+    @Param({"en", "it", "trk"})
+    public String language;
+
+    @Param({"small", "medium"})
+    public String corpus;
+
+    @Param({"scalar", "default"})
+    public String kernel;
+
+    private List<Text> lines;
+    private byte[] bytes;
+    private double megabytes;
+    private byte[] letterTable;
+    private long[] letterCounts;
+    private Object histogram;
+    private MethodHandle countLetters;
+    private MethodHandle add;
+    private MethodHandle flush;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Corpus dataset = Corpus.load(corpus, language);
+        lines = dataset.getLines();
+        bytes = dataset.getBytes();
+        megabytes = dataset.getMegabytes();
+
+        Class<?> normalizer = ModuleLoader.loadClass("it.unipi.hadoop.LanguageNormalizer");
+        letterTable = (byte[]) normalizer.getMethod("letterTable", String.class).invoke(null, language);
+        letterCounts = new long[((String) normalizer.getMethod("alphabet", String.class).invoke(null, language)).length()];
+        countLetters = MethodHandles.publicLookup().findStatic(normalizer, "countLetters",
+                MethodType.methodType(int.class, byte[].class, int.class, int.class, long[].class, byte[].class));
+
+        // The histogram is created on the kernel of the parameter, the scalar one or the one of the JVM
+        Class<?> letterHistogram = ModuleLoader.loadClass("it.unipi.hadoop.LetterHistogram");
+        Class<?> asciiKernel = ModuleLoader.loadClass("it.unipi.hadoop.LetterHistogram$AsciiKernel");
+        Object kernelInstance = kernel.equals("scalar")
+                ? ModuleLoader.loadClass("it.unipi.hadoop.LetterHistogram$ScalarKernel").getConstructor().newInstance()
+                : letterHistogram.getMethod("kernel").invoke(null);
+        histogram = letterHistogram.getConstructor(byte[].class, long[].class, asciiKernel).newInstance(letterTable, letterCounts, kernelInstance);
+        System.out.println("Kernel: " + kernelInstance);
+
+        add = MethodHandles.publicLookup().findVirtual(letterHistogram, "add",
+                MethodType.methodType(void.class, byte[].class, int.class, int.class))
+                .asType(MethodType.methodType(void.class, Object.class, byte[].class, int.class, int.class));
+        flush = MethodHandles.publicLookup().findVirtual(letterHistogram, "flush", MethodType.methodType(long.class))
+                .asType(MethodType.methodType(long.class, Object.class));
+    }
+
+    @Benchmark
+    public long characterLoopLines(ThroughputCounters counters) throws Throwable {
+        long letterCount = 0;
+        for (Text line : lines) {
+            letterCount += (int) countLetters.invokeExact(line.getBytes(), 0, line.getLength(), letterCounts, letterTable);
+        }
+        counters.megabytes += megabytes;
+        return letterCount;
+    }
+
+    @Benchmark
+    public long histogramLines(ThroughputCounters counters) throws Throwable {
+        for (Text line : lines) {
+            add.invokeExact(histogram, line.getBytes(), 0, line.getLength());
+        }
+        long letterCount = (long) flush.invokeExact(histogram);
+        counters.megabytes += megabytes;
+        return letterCount;
+    }
+
+    @Benchmark
+    public long histogramBuffer(ThroughputCounters counters) throws Throwable {
+        add.invokeExact(histogram, bytes, 0, bytes.length);
+        long letterCount = (long) flush.invokeExact(histogram);
+        counters.megabytes += megabytes;
+        return letterCount;
+    }
+}
@@ -0,0 +1,157 @@
+package it.unipi.hadoop.benchmark;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.RawComparator;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.MRJobConfig;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.map.WrappedMapper;
+import org.apache.hadoop.mapreduce.lib.reduce.WrappedReducer;
+import org.apache.hadoop.mapreduce.task.MapContextImpl;
+import org.apache.hadoop.mapreduce.task.ReduceContextImpl;
+
+import java.io.IOException;
+import java.util.List;
+
+// Runs mappers and combiners in the benchmark JVM through the same contexts the task runner builds,
+// without a job, a cluster or any file system access
+public class MapTaskHarness {
+
+    private static final TaskAttemptID TASK_ATTEMPT = new TaskAttemptID("benchmark", 0, TaskType.MAP, 0, 0);
+
+    // Reporter backed by real counters, so the mappers can cache and increment them
+    public static class BenchmarkReporter extends StatusReporter {
+        private final Counters counters = new Counters();
+
+        @Override
+        public Counter getCounter(Enum<?> name) {
+            return counters.findCounter(name);
+        }
+
+        @Override
+        public Counter getCounter(String group, String name) {
+            return counters.findCounter(group, name);
+        }
+
+        @Override
+        public void progress() {
+        }
+
+        @Override
+        public float getProgress() {
+            return 0;
+        }
+
+        @Override
+        public void setStatus(String status) {
+        }
+    }
+
+    // Record reader handing out the lines of a corpus, keyed by their index
+    private static class LineReader extends RecordReader<LongWritable, Text> {
+        private final List<Text> lines;
+        private final LongWritable key = new LongWritable();
+        private int index = -1;
+
+        LineReader(List<Text> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context) {
+        }
+
+        @Override
+        public boolean nextKeyValue() {
+            if (++index >= lines.size())
+                return false;
+            key.set(index);
+            return true;
+        }
+
+        @Override
+        public LongWritable getCurrentKey() {
+            return key;
+        }
+
+        @Override
+        public Text getCurrentValue() {
+            return lines.get(index);
+        }
+
+        @Override
+        public float getProgress() {
+            return lines.isEmpty() ? 1 : (float) index / lines.size();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+        configuration method returns the configuration of a single map task of a job with one reducer.
+
+        @param language  The language code (en, it, trk).
+        @return  The configuration object.
+     */
+    public static Configuration configuration(String language) {
+        Configuration conf = new Configuration(false);
+        conf.set("language", language);
+        conf.setInt(MRJobConfig.NUM_REDUCES, 1);
+        conf.setInt(MRJobConfig.TASK_PARTITION, 0);
+        return conf;
+    }
+
+    /**
+        runMapper method runs setup, map for every line and cleanup of the mapper, like a map task does.
+
+        @param mapper  The mapper to run.
+        @param conf  The configuration object.
+        @param lines  The input lines.
+        @param output  The record writer receiving the map output.
+        @param reporter  The reporter holding the counters of the task.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static void runMapper(Mapper mapper, Configuration conf, List<Text> lines, RecordWriter output, StatusReporter reporter) throws IOException, InterruptedException {
+        InputSplit split = new FileSplit(new Path("benchmark"), 0, 0, null);
+        MapContextImpl mapContext = new MapContextImpl(conf, TASK_ATTEMPT, new LineReader(lines), output, null, reporter, split);
+        mapper.run(new WrappedMapper().getMapContext(mapContext));
+    }
+
+    /**
+        runCombiner method runs the combiner over sorted map output, like the map output buffer does before
+        spilling.
+
+        @param combiner  The combiner to run.
+        @param conf  The configuration object.
+        @param input  The sorted serialized map output.
+        @param comparator  The comparator grouping the keys.
+        @param keyClass  The class of the map output keys.
+        @param valueClass  The class of the map output values.
+        @param output  The record writer receiving the combined output.
+        @param reporter  The reporter holding the counters of the task.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static void runCombiner(Reducer combiner, Configuration conf, RawKeyValueIterator input, RawComparator comparator,
+                                   Class keyClass, Class valueClass, RecordWriter output, StatusReporter reporter) throws IOException, InterruptedException {
+        Counter inputKeys = reporter.getCounter("benchmark", "combineInputKeys");
+        Counter inputValues = reporter.getCounter("benchmark", "combineInputValues");
+        ReduceContextImpl reduceContext = new ReduceContextImpl(conf, TASK_ATTEMPT, input, inputKeys, inputValues, output, null, reporter, comparator, keyClass, valueClass);
+        combiner.run(new WrappedReducer().getReducerContext(reduceContext));
+    }
+}
@@ -0,0 +1,88 @@
+package it.unipi.hadoop.benchmark;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Throughput of a whole map task over a dataset: setup, map for every line and cleanup. The map output goes
+// to a blackhole, so only the work of the mapper is measured. The mappers keep the language in a static field,
+// so every parameter combination needs its own fork
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MapperBenchmark {
+
+    @Param({"LetterCount/MapperCount", "LetterCount/InMapperCount", "LetterFrequency/MapperFrequency", "LetterFrequency/InMapperFrequency"})
+    public String mapper;
+
+    @Param({"en", "it", "trk"})
+    public String language;
+
+    @Param({"small", "medium"})
+    public String corpus;
+
+    // Threads of the in-mapper letter mappers, the other mappers ignore it
+    @Param({"1"})
+    public int mapThreads;
+
+    private List<Text> lines;
+    private double megabytes;
+    private Configuration conf;
+    private Class<?> mapperClass;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Corpus dataset = Corpus.load(corpus, language);
+        lines = dataset.getLines();
+        megabytes = dataset.getMegabytes();
+        conf = MapTaskHarness.configuration(language);
+        conf.setInt("mapThreads", mapThreads);
+        mapperClass = mapperClass(mapper);
+    }
+
+    @Benchmark
+    @SuppressWarnings("rawtypes")
+    public void map(ThroughputCounters counters, Blackhole blackhole) throws Exception {
+        BlackholeWriter output = new BlackholeWriter(blackhole);
+        MapTaskHarness.runMapper((Mapper) mapperClass.newInstance(), conf, lines, output, new MapTaskHarness.BenchmarkReporter());
+        counters.megabytes += megabytes;
+        counters.records += output.getRecords();
+    }
+
+    /**
+        mapperClass method loads the mapper named by the benchmark parameter from the LetterFrequency module.
+
+        @param name  The job class and the simple name of the mapper, separated by a slash.
+        @return  The mapper class.
+     */
+    static Class<?> mapperClass(String name) throws Exception {
+        switch (name) {
+            case "LetterCount/MapperCount":
+            case "LetterCount/InMapperCount":
+            case "LetterFrequency/MapperFrequency":
+            case "LetterFrequency/InMapperFrequency":
+                return ModuleLoader.loadClass("it.unipi.hadoop." + name.replace('/', '$'));
+            default:
+                throw new IllegalArgumentException("Unsupported mapper: " + name);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package it.unipi.hadoop.benchmark;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+// Loads the classes of the LetterFrequency module from the jar it builds, on top of the Hadoop classes of the
+// benchmark jar, so the benchmarks always measure the jar that is run on the cluster
+public class ModuleLoader {
+
+    private static final String MODULE = "LetterFrequency";
+
+    private static ClassLoader loader;
+
+    /**
+        loadClass method loads a class of the LetterFrequency module. The jar of the module is read from the
+        "LetterFrequency.jar" system property, by default it is the jar built by the module next to the
+        working directory.
+
+        @param className  The binary name of the class, nested classes use "$".
+        @return  The class, loaded by the class loader of the module.
+     */
+    public static synchronized Class<?> loadClass(String className) throws IOException, ClassNotFoundException {
+        if (loader == null) {
+            File jar = moduleJar(MODULE);
+            loader = new URLClassLoader(new URL[]{jar.toURI().toURL()}, ModuleLoader.class.getClassLoader());
+        }
+        return Class.forName(className, true, loader);
+    }
+
+    private static File moduleJar(String module) throws FileNotFoundException {
+        String property = System.getProperty(module + ".jar");
+        if (property != null)
+            return existing(new File(property));
+
+        // The benchmarks can be run from the repository root or from the benchmarks folder
+        String jarName = module + "/target/" + module + "-1.0-SNAPSHOT.jar";
+        File jar = new File(jarName);
+        if (!jar.isFile())
+            jar = new File("../" + jarName);
+        return existing(jar);
+    }
+
+    private static File existing(File jar) throws FileNotFoundException {
+        if (!jar.isFile())
+            throw new FileNotFoundException("Module jar not found, build it with mvn package: " + jar.getAbsolutePath());
+        return jar;
+    }
+}
@@ -0,0 +1,77 @@
+package it.unipi.hadoop.benchmark;
+
+import org.apache.hadoop.io.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Throughput of LanguageNormalizer on a whole dataset: line by line from Text values as the mappers call it,
+// and on the raw bytes of the file in one call as the local engine does
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class NormalizerBenchmark {
+
+    @Param({"en", "it", "trk"})
+    public String language;
+
+    @Param({"small", "medium"})
+    public String corpus;
+
+    private List<Text> lines;
+    private byte[] bytes;
+    private double megabytes;
+    private char[] letters;
+    private MethodHandle normalizeText;
+    private MethodHandle normalizeBytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Corpus dataset = Corpus.load(corpus, language);
+        lines = dataset.getLines();
+        bytes = dataset.getBytes();
+        megabytes = dataset.getMegabytes();
+        letters = new char[bytes.length];
+
+        Class<?> normalizer = ModuleLoader.loadClass("it.unipi.hadoop.LanguageNormalizer");
+        normalizeText = MethodHandles.publicLookup().findStatic(normalizer, "normalize",
+                MethodType.methodType(int.class, Text.class, char[].class, String.class));
+        normalizeBytes = MethodHandles.publicLookup().findStatic(normalizer, "normalize",
+                MethodType.methodType(int.class, byte[].class, int.class, int.class, char[].class, String.class));
+    }
+
+    @Benchmark
+    public long normalizeLines(ThroughputCounters counters) throws Throwable {
+        long letterCount = 0;
+        for (Text line : lines) {
+            letterCount += (int) normalizeText.invokeExact(line, letters, language);
+        }
+        counters.megabytes += megabytes;
+        return letterCount;
+    }
+
+    @Benchmark
+    public int normalizeBuffer(ThroughputCounters counters) throws Throwable {
+        int letterCount = (int) normalizeBytes.invokeExact(bytes, 0, bytes.length, letters, language);
+        counters.megabytes += megabytes;
+        return letterCount;
+    }
+}
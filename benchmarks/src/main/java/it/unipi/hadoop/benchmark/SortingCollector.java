@@ -0,0 +1,130 @@
+package it.unipi.hadoop.benchmark;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.RawComparator;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.util.IndexedSortable;
+import org.apache.hadoop.util.Progress;
+import org.apache.hadoop.util.QuickSort;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Map output collector doing in memory what the map output buffer does before a spill: it serializes
+// every record, then sorts the records by their serialized key with the raw comparator of the key class
+public class SortingCollector extends RecordWriter<Writable, Writable> implements IndexedSortable {
+    private final DataOutputBuffer buffer = new DataOutputBuffer();
+    private final RawComparator<?> comparator;
+    private int[] keyStarts = new int[1024];
+    private int[] valueStarts = new int[1024];
+    private int[] order = new int[1024];
+    private int records;
+
+    public SortingCollector(RawComparator<?> comparator) {
+        this.comparator = comparator;
+    }
+
+    public int getRecords() {
+        return records;
+    }
+
+    public int getBytes() {
+        return buffer.getLength();
+    }
+
+    @Override
+    public void write(Writable key, Writable value) throws IOException {
+        if (records == keyStarts.length) {
+            keyStarts = Arrays.copyOf(keyStarts, records * 2);
+            valueStarts = Arrays.copyOf(valueStarts, records * 2);
+            order = Arrays.copyOf(order, records * 2);
+        }
+
+        keyStarts[records] = buffer.getLength();
+        key.write(buffer);
+        valueStarts[records] = buffer.getLength();
+        value.write(buffer);
+        order[records] = records;
+        records++;
+    }
+
+    @Override
+    public void close(TaskAttemptContext context) {
+    }
+
+    // Start of the record following the given one, which is also the end of the given record
+    private int recordEnd(int record) {
+        return (record + 1 < records) ? keyStarts[record + 1] : buffer.getLength();
+    }
+
+    @Override
+    public int compare(int i, int j) {
+        int a = order[i];
+        int b = order[j];
+        return comparator.compare(buffer.getData(), keyStarts[a], valueStarts[a] - keyStarts[a],
+                buffer.getData(), keyStarts[b], valueStarts[b] - keyStarts[b]);
+    }
+
+    @Override
+    public void swap(int i, int j) {
+        int record = order[i];
+        order[i] = order[j];
+        order[j] = record;
+    }
+
+    /**
+        sort method sorts the collected records by key and returns an iterator over them in key order.
+
+        @return  The iterator over the serialized keys and values.
+     */
+    public RawKeyValueIterator sort() {
+        new QuickSort().sort(this, 0, records);
+
+        return new RawKeyValueIterator() {
+            private final DataInputBuffer key = new DataInputBuffer();
+            private final DataInputBuffer value = new DataInputBuffer();
+            private int index = -1;
+
+            @Override
+            public DataInputBuffer getKey() {
+                return key;
+            }
+
+            @Override
+            public DataInputBuffer getValue() {
+                return value;
+            }
+
+            @Override
+            public boolean next() {
+                if (++index >= records)
+                    return false;
+                int record = order[index];
+                key.reset(buffer.getData(), keyStarts[record], valueStarts[record] - keyStarts[record]);
+                value.reset(buffer.getData(), valueStarts[record], recordEnd(record) - valueStarts[record]);
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public Progress getProgress() {
+                return new Progress();
+            }
+        };
+    }
+
+    /**
+        reset method drops the collected records, keeping the allocated buffers for the next run.
+     */
+    public void reset() {
+        buffer.reset();
+        records = 0;
+    }
+}
@@ -0,0 +1,22 @@
+package it.unipi.hadoop.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Secondary results of the benchmarks, JMH divides them by the measured time and reports them per second:
+// "megabytes" is the input throughput in MB/s and "records" is the number of map output records per second
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ThroughputCounters {
+    public double megabytes;
+    public long records;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        megabytes = 0;
+        records = 0;
+    }
+}
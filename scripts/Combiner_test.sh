@@ -41,13 +41,14 @@ if [[ ! -z "CC_project/data/input/Seagul_Italian.txt" ]]; then
         fi
 
         echo "Processing file: CC_project/data/input/Seagul_Italian.txt"
-        hadoop jar ${project_dir}/frequencyAlgorithms/Combiner-1.0-SNAPSHOT.jar \
+        # The test inputs are below the local threshold, turn it off to time the MapReduce jobs of the strategy
+        hadoop jar ${project_dir}/frequencyAlgorithms/LetterFrequency-1.0-SNAPSHOT.jar \
         it.unipi.hadoop.RunProcess \
         "CC_project/data/input/Seagul_Italian.txt" \
         $language \
         ${output_dir}/notFormatted/${FILE_NAME} \
 	${output_dir}/formatted/${FILE_NAME}.txt \
-        3 > ${local_output_dir}/performance/${FILE_NAME}.txt 2>&1
+        3 --strategy=combiner --localThreshold=0 > ${local_output_dir}/performance/${FILE_NAME}.txt 2>&1
 fi
 
 # Copy the final file from the HDFS to local
@@ -49,13 +49,14 @@ for algorithm in "${algorithms[@]}"; do
                 fi
 
                 echo "Processing file: ${FILE}"
-                hadoop jar ${project_dir}/frequencyAlgorithms/${algorithm}-1.0-SNAPSHOT.jar \
+                # The test inputs are below the local threshold, turn it off to time the MapReduce jobs of the strategy
+                hadoop jar ${project_dir}/frequencyAlgorithms/LetterFrequency-1.0-SNAPSHOT.jar \
                 it.unipi.hadoop.RunProcess \
                 $FILE \
                 $language \
                 ${output_dir}/notFormatted/${FILE_NAME} \
 		${output_dir}/formatted/${FILE_NAME}.txt \
-                $reducer > ${local_output_dir}/performance/${FILE_NAME}.txt 2>&1
+                $reducer --strategy=$algorithm --localThreshold=0 > ${local_output_dir}/performance/${FILE_NAME}.txt 2>&1
             	echo "Letter frequency algorithm completed"
 		fi
         done